@@ -1,7 +1,26 @@
 package com.narsil.misc;
 
+import com.narsil.misc.http.BatchRequest;
+import com.narsil.misc.http.CircuitBreaker;
+import com.narsil.misc.http.FanOutExecutors;
+import com.narsil.misc.http.HedgePolicy;
+import com.narsil.misc.http.Http2Engine;
+import com.narsil.misc.http.HttpEngine;
+import com.narsil.misc.http.HttpLogger;
+import com.narsil.misc.http.HttpMetricsListener;
+import com.narsil.misc.http.LoadBalancer;
+import com.narsil.misc.http.RateLimiter;
+import com.narsil.misc.http.RequestCoalescer;
+import com.narsil.misc.http.RequestMetrics;
+import com.narsil.misc.http.ResponseBodyHandler;
+import com.narsil.misc.http.ResponseBodyHandlers;
+import com.narsil.misc.http.ResponseCache;
+import com.narsil.misc.http.ResponseHandler;
+import com.narsil.misc.http.RetryPolicy;
+import com.narsil.misc.http.StreamingMultipartEntity;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpHost;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.config.RequestConfig;
@@ -9,11 +28,10 @@ import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.conn.HttpHostConnectException;
-import org.apache.http.conn.routing.HttpRoute;
-import org.apache.http.conn.routing.HttpRoutePlanner;
-import org.apache.http.conn.routing.RouteInfo;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.FormBodyPart;
@@ -21,41 +39,49 @@ import org.apache.http.entity.mime.FormBodyPartBuilder;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.FileBody;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.util.EntityUtils;
-
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.KeyManager;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
+
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.net.SocketTimeoutException;
+import java.net.URI;
 import java.net.URL;
 import java.net.http.HttpConnectTimeoutException;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyManagementException;
 import java.security.KeyStore;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
  * http / https connection toolkit
  * <p>
- * supports GET, POST method
+ * supports GET, POST method (sync & async)
  *
  * @author iamnarsil
- * @version 20230814
+ * @version 20261018
  * @since 20230328
  */
 public class HttpUtils {
@@ -64,12 +90,19 @@ public class HttpUtils {
 
     public static final int STATUS_CODE_UNKNOWN = 0;
     public static final int STATUS_CODE_CONNECTION_REFUSED = -1;
+    public static final int STATUS_CODE_CIRCUIT_OPEN = -2;
+    public static final int STATUS_CODE_BULKHEAD_FULL = -3;
+    public static final int STATUS_CODE_RATE_LIMITED = -4;
     public static final int STATUS_CODE_CONNECTION_TIMEOUT = -999;
 
+    // max request body printed by enablePrinting (unit: byte)
+    private static final int MAX_PRINTING_BODY = 1024 * 1024;
+
     private static final String SYMBOL_DIRECT = " -> ";
     private static final String SYMBOL_WITH_PROXY = " +> ";
 
-    private int statusCode = STATUS_CODE_UNKNOWN;
+    // status code of the last completed call (any thread, including async ones)
+    private volatile int statusCode = STATUS_CODE_UNKNOWN;
     private final String symbol;
 
     private final String url;
@@ -91,8 +124,51 @@ public class HttpUtils {
     // print
     private final boolean enablePrinting;
 
+    // sampled async logger (optional), replaces printing when set
+    private final HttpLogger httpLogger;
+
+    // long-lived client engine (connection pool)
+    private final HttpEngine engine;
+
+    // HTTP/2 engine (optional), replaces engine for sending when set
+    private final Http2Engine http2Engine;
+
+    // response cache for GET (optional)
+    private final ResponseCache responseCache;
+
+    // request coalescer for GET (optional)
+    private final RequestCoalescer requestCoalescer;
+
+    // retry policy on status code (optional)
+    private final RetryPolicy retryPolicy;
+
+    // circuit breaker & bulkhead per host (optional)
+    private final CircuitBreaker circuitBreaker;
+
+    // client-side rate limiter per host or url prefix (optional)
+    private final RateLimiter rateLimiter;
+
+    // hedging for GET (optional), hedge request is sent to hedgeUrl (default: same url)
+    private final HedgePolicy hedgePolicy;
+    private final String hedgeUrl;
+
+    // load balancer across replicas (optional), url is resolved against the selected endpoint
+    private final LoadBalancer loadBalancer;
+
+    // metrics listener (optional, ex: HttpMetrics)
+    private final HttpMetricsListener metricsListener;
+
+    // gzip request body of at least this size (unit: byte, -1: disabled)
+    private final int requestCompressionThreshold;
+
+    // requests being executed, can be aborted by abort()
+    private final Set<HttpRequestBase> inFlightRequests = ConcurrentHashMap.newKeySet();
+
+    // request being executed by current task of invokeAll, so only that one is aborted at deadline
+    private static final ThreadLocal<AtomicReference<HttpRequestBase>> fanOutRequest = new ThreadLocal<>();
+
     // common trust manager (reduce I/O operation)
-    private static final TrustManager trustManager;
+    private static final X509TrustManager trustManager;
 
     static {
         trustManager = new _CustomizedTrustManager().getTrustManager();
@@ -110,8 +186,44 @@ public class HttpUtils {
         this.proxyServerAddress = builder.proxyServerAddress;
         this.proxyServerPort = builder.proxyServerPort;
         this.enablePrinting = builder.enablePrinting;
+        this.httpLogger = builder.httpLogger;
+        this.responseCache = builder.responseCache;
+        this.requestCoalescer = builder.requestCoalescer;
+        this.retryPolicy = builder.retryPolicy;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.rateLimiter = builder.rateLimiter;
+        this.hedgePolicy = builder.hedgePolicy;
+        this.hedgeUrl = builder.hedgeUrl != null ? builder.hedgeUrl : builder.url;
+        this.loadBalancer = builder.loadBalancer;
+        this.metricsListener = builder.metricsListener;
+        this.requestCompressionThreshold = builder.requestCompressionThreshold;
 
         symbol = this.useProxy ? SYMBOL_WITH_PROXY : SYMBOL_DIRECT;
+
+        // share the pooled engine of identical connection-level setting unless a dedicated one is given
+        this.engine = builder.engine != null ? builder.engine : HttpEngine.shared(new HttpEngine.Builder()
+                .setTrustManager(trustManager)
+                .setAllowedHostnames(allowedHostnames)
+                .setMaxRetryTimes(maxRetryTimes)
+                .setUseProxy(useProxy)
+                .setProxyServerProtocol(proxyServerProtocol)
+                .setProxyServerAddress(proxyServerAddress)
+                .setProxyServerPort(proxyServerPort)
+                .setDecompressionBufferSize(builder.decompressionBufferSize));
+
+        // requests of the same origin are multiplexed over one connection
+        if (builder.http2Engine != null || !builder.enableHttp2) {
+            this.http2Engine = builder.http2Engine;
+        } else {
+            this.http2Engine = Http2Engine.shared(new Http2Engine.Builder()
+                    .setTrustManager(trustManager)
+                    .setAllowedHostnames(allowedHostnames)
+                    .setMaxConnectTimeout(maxConnectTimeout)
+                    .setUseProxy(useProxy)
+                    .setProxyServerAddress(proxyServerAddress)
+                    .setProxyServerPort(proxyServerPort)
+                    .setDecompressionBufferSize(builder.decompressionBufferSize));
+        }
     }
 
     /**
@@ -121,77 +233,158 @@ public class HttpUtils {
      */
     public Tuple.Pair<Integer, String> get() {
 
-        String content = null;
-        CloseableHttpClient httpClient = null;
-        CloseableHttpResponse httpResponse = null;
-
-        try {
-            HttpGet httpGet = new HttpGet(url);
+        // identical GET in flight (same url & header) -> share its result
+        Tuple.Pair<Integer, String> response = (requestCoalescer != null)
+                ? requestCoalescer.execute(ResponseCache.key(url, header), this::getThroughCache)
+                : getThroughCache();
 
-            if (header != null) {
-                if (!header.containsKey("Accept")) {
-                    httpGet.setHeader("Accept", ContentType.APPLICATION_JSON.toString());
-                }
+        // keep latest status for isSuccessful() (304 is served as cached status)
+        statusCode = response.getA();
+        return response;
+    }
 
-                // add header
-                for (Map.Entry<String, String> entry : header.entrySet()) {
+    private Tuple.Pair<Integer, String> getThroughCache() {
 
-                    String key = entry.getKey();
-                    String value = entry.getValue();
+        if (responseCache == null) {
+            return executeGet(HttpGet::new, ResponseBodyHandlers.ofString());
+        }
 
-                    if (!key.trim().isEmpty()) {
-                        httpGet.addHeader(key, value);
+        // fresh entry is served without request, stale entry is revalidated by conditional request
+        return responseCache.get(ResponseCache.key(url, header),
+                cached -> executeGet(targetUrl -> {
+                    HttpGet httpGet = new HttpGet(targetUrl);
+                    if (cached != null) {
+                        cached.setConditionalHeaders(httpGet);
                     }
+                    return httpGet;
+                }, ResponseCache.handler()));
+    }
+
+    /**
+     * execute GET, hedged by hedge policy (if any)
+     * <p>
+     * only used with fully buffered body, since the losing response is discarded
+     *
+     * @param requestFactory request factory (argument: target url)
+     * @param handler response handler
+     * @param <T> body type
+     * @return response data
+     */
+    private <T> Tuple.Pair<Integer, T> executeGet(Function<String, HttpRequestBase> requestFactory, ResponseHandler<T> handler) {
+
+        if (hedgePolicy == null) {
+            return execute(() -> requestFactory.apply(url), handler);
+        }
+
+        hedgePolicy.onRequest();
+        long start = System.nanoTime();
+
+        // index 0: original request, index 1: hedge request
+        List<Future<Tuple.Pair<Integer, T>>> futures = new ArrayList<>(2);
+        List<AtomicReference<HttpRequestBase>> requests = new ArrayList<>(2);
+
+        ExecutorService executor = FanOutExecutors.acquire();
+        CompletionService<Tuple.Pair<Integer, T>> completionService = new ExecutorCompletionService<>(executor);
+        Consumer<String> submit = targetUrl -> {
+            AtomicReference<HttpRequestBase> request = new AtomicReference<>();
+            Future<Tuple.Pair<Integer, T>> future = completionService.submit(() -> exchange(() -> {
+                HttpRequestBase httpRequest = requestFactory.apply(targetUrl);
+                request.set(httpRequest);
+                return httpRequest;
+            }, handler));
+            requests.add(request);
+            futures.add(future);
+        };
+
+        try {
+            submit.accept(url);
+            Future<Tuple.Pair<Integer, T>> winner = completionService.poll(hedgePolicy.getDelay(), TimeUnit.MILLISECONDS);
+
+            // no response in time -> hedge
+            if (winner == null && hedgePolicy.tryHedge()) {
+                print("\nHTTP HEDGE" + symbol + "no response in " + hedgePolicy.getDelay() + " ms, send to " + hedgeUrl);
+                try {
+                    submit.accept(hedgeUrl);
+                } catch (RejectedExecutionException e) {
+                    // keep waiting for the original one
+                    LOGGER.severe("[" + e.getClass().getName() + "]:: fan-out executor is saturated, hedge is skipped");
                 }
             }
 
-            // use "connection: close" to avoid SocketException (caused by too many open files) @ performance test
-            // httpGet.setHeader("Connection", "close");
-            if (enablePrinting) {
-                LOGGER.info("\nHTTP REQ " + symbol + httpGet.getRequestLine());
+            if (winner == null) {
+                winner = completionService.take();
             }
+            Tuple.Pair<Integer, T> response = winner.get();
 
-            httpClient = configHttpClient();
-            httpResponse = httpClient.execute(httpGet);
-            statusCode = httpResponse.getStatusLine().getStatusCode();
-            if (httpResponse.getEntity() != null) {
-                content = EntityUtils.toString(httpResponse.getEntity());
+            // first one failed without response -> wait for the other one
+            if (response.getA() <= STATUS_CODE_UNKNOWN && futures.size() > 1) {
+                winner = completionService.take();
+                response = winner.get();
             }
 
-        } catch (HttpResponseException e) {
-            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
-            statusCode = e.getStatusCode();
+            boolean isHedgeWon = futures.size() > 1 && winner == futures.get(1);
+            hedgePolicy.onResponse(isHedgeWon, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return response;
 
-        } catch (HttpHostConnectException e) {
-            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
-            statusCode = STATUS_CODE_CONNECTION_REFUSED;
+        } catch (RejectedExecutionException e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: fan-out executor is saturated");
+            return Tuple.collect(STATUS_CODE_BULKHEAD_FULL, null);
 
-        } catch (HttpConnectTimeoutException | SocketTimeoutException e) {
-            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
-            statusCode = STATUS_CODE_CONNECTION_TIMEOUT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Tuple.collect(STATUS_CODE_UNKNOWN, null);
 
-        } catch (Exception e) {
+        } catch (ExecutionException e) {
             LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            return Tuple.collect(STATUS_CODE_UNKNOWN, null);
 
         } finally {
-            if (enablePrinting) {
-                LOGGER.info("\nHTTP RESP" + symbol + "(" + statusCode + ")\nHTTP RESP" + symbol + content);
-            }
-
-            try {
-                if (httpClient != null) {
-                    httpClient.close();
-                }
-
-                if (httpResponse != null) {
-                    httpResponse.close();
+            // cancel the loser
+            for (int i = 0; i < futures.size(); i++) {
+                if (!futures.get(i).isDone()) {
+                    futures.get(i).cancel(true);
+                    HttpRequestBase request = requests.get(i).get();
+                    if (request != null) {
+                        request.abort();
+                    }
                 }
-            } catch (IOException e) {
-                LOGGER.severe(e.getMessage());
             }
+            FanOutExecutors.release(executor);
         }
+    }
+
+    /**
+     * get data, response body is converted by given handler (ex: streaming to file)
+     *
+     * @param handler response body handler
+     * @param <T> body type
+     * @return response data
+     */
+    public <T> Tuple.Pair<Integer, T> get(ResponseBodyHandler<T> handler) {
+        return execute(() -> new HttpGet(url), handler);
+    }
 
-        return Tuple.collect(statusCode, content);
+    /**
+     * get JSON data, response body is decoded straight into value object
+     *
+     * @param typeOfT class type of value object (ex: ValueObject.class)
+     * @param <T> value object
+     * @return response data
+     */
+    public <T> Tuple.Pair<Integer, T> getJson(Type typeOfT) {
+        return get(ResponseBodyHandlers.ofJson(typeOfT));
+    }
+
+    /**
+     * get JSON array data, each element is decoded and delivered to callback one by one
+     *
+     * @param typeOfT class type of array element (ex: ValueObject.class)
+     * @param consumer element callback
+     * @param <T> value object
+     * @return response data (body: element count)
+     */
+    public <T> Tuple.Pair<Integer, Long> getJsonArray(Type typeOfT, Consumer<T> consumer) {
+        return get(ResponseBodyHandlers.ofJsonArray(typeOfT, consumer));
     }
 
     /**
@@ -246,6 +439,94 @@ public class HttpUtils {
         return post(httpEntity, null);
     }
 
+    /**
+     * post files (and text fields) as multipart/form-data, streamed from disk with chunked transfer encoding
+     * <p>
+     * for large files: never buffered in memory, supports progress callback and on-the-fly compression
+     *
+     * @param entity streaming multipart entity (ex: new StreamingMultipartEntity.Builder().addFilePart("file", path).build())
+     * @return response data
+     */
+    public Tuple.Pair<Integer, String> postMultipart(StreamingMultipartEntity entity) {
+        return post(entity, null);
+    }
+
+    /**
+     * get data (async)
+     *
+     * @return future of response data
+     */
+    public CompletableFuture<Tuple.Pair<Integer, String>> getAsync() {
+        return async(this::get);
+    }
+
+    /**
+     * post JSON data (async)
+     *
+     * @param json json
+     * @return future of response data
+     */
+    public CompletableFuture<Tuple.Pair<Integer, String>> postJsonAsync(String json) {
+        return async(() -> postJson(json));
+    }
+
+    /**
+     * post text data (async)
+     *
+     * @param text text
+     * @return future of response data
+     */
+    public CompletableFuture<Tuple.Pair<Integer, String>> postTextAsync(String text) {
+        return async(() -> postText(text));
+    }
+
+    /**
+     * post form data (async)
+     *
+     * @param form form
+     * @return future of response data
+     */
+    public CompletableFuture<Tuple.Pair<Integer, String>> postFormAsync(List<NameValuePair> form) {
+        return async(() -> postForm(form));
+    }
+
+    /**
+     * post file (async)
+     *
+     * @param file file
+     * @return future of response data
+     */
+    public CompletableFuture<Tuple.Pair<Integer, String>> postFileAsync(File file) {
+        return async(() -> postFile(file));
+    }
+
+    /**
+     * post files as streaming multipart/form-data (async)
+     *
+     * @param entity streaming multipart entity
+     * @return future of response data
+     */
+    public CompletableFuture<Tuple.Pair<Integer, String>> postMultipartAsync(StreamingMultipartEntity entity) {
+        return async(() -> postMultipart(entity));
+    }
+
+    /**
+     * run request on the bounded executor of engine
+     * <p>
+     * status code mapping is the same as sync call, the future completes exceptionally only when executor is saturated
+     *
+     * @param request sync request
+     * @return future of response data
+     */
+    private CompletableFuture<Tuple.Pair<Integer, String>> async(Supplier<Tuple.Pair<Integer, String>> request) {
+        try {
+            return CompletableFuture.supplyAsync(request, engine.getAsyncExecutor());
+        } catch (RejectedExecutionException e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: async executor is saturated");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * post data
      *
@@ -254,72 +535,322 @@ public class HttpUtils {
      * @return response data
      */
     private Tuple.Pair<Integer, String> post(HttpEntity entity, String contentType) {
+        return post(entity, contentType, ResponseBodyHandlers.ofString());
+    }
 
-        String content = null;
-        CloseableHttpClient httpClient = null;
-        CloseableHttpResponse httpResponse = null;
+    /**
+     * post data, response body is converted by given handler (ex: streaming to file)
+     *
+     * @param entity http entity
+     * @param contentType http content type (only applied to string entity)
+     * @param handler response body handler
+     * @param <T> body type
+     * @return response data
+     */
+    public <T> Tuple.Pair<Integer, T> post(HttpEntity entity, String contentType, ResponseBodyHandler<T> handler) {
 
-        try {
+        // compressed once, retries resend the same bytes
+        HttpEntity requestEntity = compress(entity);
+
+        return execute(() -> {
             HttpPost httpPost = new HttpPost(url);
-            httpPost.setEntity(entity);
+            httpPost.setEntity(requestEntity);
             if (entity instanceof StringEntity) {
                 httpPost.setHeader("Content-Type", contentType);
             }
+            return httpPost;
+        }, handler);
+    }
+
+    /**
+     * send one request of a batch through this instance (see BatchPipeline)
+     * <p>
+     * url of the spec (if any) replaces url of this instance, and header of the spec replaces header of this instance
+     * with the same name.
+     * status of this instance is NOT touched, so it is safe to call concurrently.
+     *
+     * @param batchRequest request spec (GET without entity, otherwise POST)
+     * @return response data
+     */
+    public Tuple.Pair<Integer, String> send(BatchRequest batchRequest) {
+
+        String target = batchRequest.getUrl() != null ? batchRequest.getUrl() : url;
+        HttpEntity entity = compress(batchRequest.getEntity());
+
+        return exchange(() -> {
+            HttpRequestBase request;
+            if (entity != null) {
+                HttpPost httpPost = new HttpPost(target);
+                httpPost.setEntity(entity);
+                request = httpPost;
+            } else {
+                request = new HttpGet(target);
+            }
+
+            if (batchRequest.getHeader() != null) {
+                for (Map.Entry<String, String> entry : batchRequest.getHeader().entrySet()) {
+                    request.setHeader(entry.getKey(), entry.getValue());
+                }
+            }
+            return request;
+        }, ResponseBodyHandlers.ofString());
+    }
+
+    /**
+     * gzip request body when request compression is enabled and body reaches the threshold
+     *
+     * @param entity http entity
+     * @return compressed entity (Content-Encoding: gzip), or the given entity as it is
+     */
+    private HttpEntity compress(HttpEntity entity) {
+
+        // streaming (unknown length) & already encoded entity is sent as it is
+        if (requestCompressionThreshold < 0 || entity == null
+                || !entity.isRepeatable() || entity.getContentEncoding() != null
+                || entity.getContentLength() < 0 || entity.getContentLength() < requestCompressionThreshold) {
+            return entity;
+        }
+
+        try (InputStream is = entity.getContent()) {
+
+            byte[] compressed = ZipUtils.gzipCompress(is.readAllBytes());
+
+            // incompressible (ex: already compressed image)
+            if (compressed == null || compressed.length >= entity.getContentLength()) {
+                return entity;
+            }
+
+            ByteArrayEntity compressedEntity = new ByteArrayEntity(compressed);
+            compressedEntity.setContentType(entity.getContentType());
+            compressedEntity.setContentEncoding("gzip");
+            return compressedEntity;
+
+        } catch (IOException e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            return entity;
+        }
+    }
+
+    /**
+     * execute request, and retry by retry policy (if any)
+     *
+     * @param requestFactory request factory
+     * @param handler response handler
+     * @param <T> body type
+     * @return response data
+     */
+    private <T> Tuple.Pair<Integer, T> execute(Supplier<HttpRequestBase> requestFactory, ResponseHandler<T> handler) {
+
+        Tuple.Pair<Integer, T> response = exchange(requestFactory, handler);
+
+        // keep latest status for isSuccessful()
+        statusCode = response.getA();
+        return response;
+    }
+
+    /**
+     * execute request and retry, without touching status of this instance (safe for concurrent branches)
+     *
+     * @param requestFactory request factory
+     * @param handler response handler
+     * @param <T> body type
+     * @return response data
+     */
+    private <T> Tuple.Pair<Integer, T> exchange(Supplier<HttpRequestBase> requestFactory, ResponseHandler<T> handler) {
+
+        Attempt<T> result = executeOnce(requestFactory, handler, 0);
+
+        for (int attempt = 1; result.retryDelay >= 0; attempt++) {
+            print("\nHTTP RETRY" + symbol + "(" + result.status + ") #" + attempt + " in " + result.retryDelay + " ms");
+
+            try {
+                Thread.sleep(result.retryDelay);
+            } catch (InterruptedException e) {
+                // cancelled (ex: deadline of invokeAll), keep the last status
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            result = executeOnce(requestFactory, handler, attempt);
+        }
+
+        return Tuple.collect(result.status, result.content);
+    }
+
+    /**
+     * execute request once
+     * <p>
+     * when the attempt is going to be retried, response body is discarded without calling handler
+     *
+     * @param requestFactory request factory
+     * @param handler response handler
+     * @param attempt attempt index (0 -> original request)
+     * @param <T> body type
+     * @return result of attempt
+     */
+    private <T> Attempt<T> executeOnce(Supplier<HttpRequestBase> requestFactory, ResponseHandler<T> handler, int attempt) {
+
+        int status = STATUS_CODE_UNKNOWN;
+        T content = null;
+        long retryDelay = -1L;
+        HttpRequestBase request = null;
+        CloseableHttpResponse httpResponse = null;
+        boolean isDetached = false;
+        CircuitBreaker.Permit permit = null;
+        LoadBalancer.Endpoint endpoint = null;
+        HttpClientContext context = HttpClientContext.create();
+        long startTime = 0L;
+        boolean isStarted = false;
+        boolean isSent = false;
+        boolean isLogged = false;
+
+        try {
+            request = requestFactory.get();
+
+            // relative url (ex: /api/items) -> resolved against endpoint selected by load balancer (every attempt)
+            if (loadBalancer != null && !request.getURI().isAbsolute()) {
+                endpoint = loadBalancer.select();
+                request.setURI(URI.create(endpoint.resolve(request.getURI().toString())));
+            }
+
+            if (retryPolicy != null && attempt == 0) {
+                retryPolicy.onRequest(request.getURI().getHost());
+            }
+
+            // keep outbound rate within quota (every attempt consumes a permit)
+            if (rateLimiter != null) {
+                int rejection = rateLimiter.throttle(request.getURI());
+                if (rejection != STATUS_CODE_UNKNOWN) {
+                    LOGGER.warning("request is rejected (" + rejection + "): " + request.getRequestLine());
+                    return new Attempt<>(rejection, null, -1L);
+                }
+            }
+
+            // fail fast when host is unhealthy or saturated
+            if (circuitBreaker != null) {
+                CircuitBreaker.Permit acquired = circuitBreaker.tryAcquire(request.getURI().getHost());
+                if (!acquired.isPermitted()) {
+                    LOGGER.warning("request is rejected (" + acquired.getRejection() + "): " + request.getRequestLine());
+                    return new Attempt<>(acquired.getRejection(), null, -1L);
+                }
+                permit = acquired;
+            }
 
             if (header != null) {
-                if (!header.containsKey("Accept")) {
-                    httpPost.setHeader("Accept", ContentType.APPLICATION_JSON.toString());
+                if (!header.containsKey("Accept") && !request.containsHeader("Accept")) {
+                    request.setHeader("Accept", ContentType.APPLICATION_JSON.toString());
                 }
 
-                // add header
+                // add header, header already set on the request (ex: by BatchRequest) wins
                 for (Map.Entry<String, String> entry : header.entrySet()) {
 
                     String key = entry.getKey();
                     String value = entry.getValue();
 
-                    if (!key.trim().isEmpty()) {
-                        httpPost.addHeader(key, value);
+                    if (!key.trim().isEmpty() && !request.containsHeader(key)) {
+                        request.addHeader(key, value);
                     }
                 }
             }
 
             // use "connection: close" to avoid SocketException (caused by too many open files) @ performance test
-            // httpPost.setHeader("Connection", "close");
-            if (enablePrinting) {
-                LOGGER.info("\nHTTP REQ " + symbol + httpPost.getRequestLine() + "\nHTTP REQ " + symbol + EntityUtils.toString(entity));
+            // request.setHeader("Connection", "close");
+            if (httpLogger != null) {
+                // request entity is previewed, NOT consumed
+                isLogged = httpLogger.sample();
+                if (isLogged) {
+                    httpLogger.logRequest(symbol, request);
+                }
+            } else if (enablePrinting) {
+                if (request instanceof HttpEntityEnclosingRequest) {
+                    HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+                    // preview does NOT consume streaming entity
+                    LOGGER.info("\nHTTP REQ " + symbol + request.getRequestLine() + "\nHTTP REQ " + symbol + HttpLogger.preview(entity, MAX_PRINTING_BODY));
+                } else {
+                    LOGGER.info("\nHTTP REQ " + symbol + request.getRequestLine());
+                }
             }
 
-            httpClient = configHttpClient();
-            httpResponse = httpClient.execute(httpPost);
-            statusCode = httpResponse.getStatusLine().getStatusCode();
-            content = EntityUtils.toString(httpResponse.getEntity());
+            request.setConfig(configRequestConfig());
+            inFlightRequests.add(request);
+
+            AtomicReference<HttpRequestBase> taskRequest = fanOutRequest.get();
+            if (taskRequest != null) {
+                taskRequest.set(request);
+                // task is cancelled before invokeAll can see the request
+                if (Thread.currentThread().isInterrupted()) {
+                    request.abort();
+                }
+            }
+
+            if (metricsListener != null) {
+                metricsListener.onRequestStarted(request.getURI().getHost());
+                startTime = System.nanoTime();
+                isStarted = true;
+            }
+
+            isSent = true;
+            httpResponse = (http2Engine != null) ? http2Engine.execute(request, context) : engine.getHttpClient().execute(request, context);
+            status = httpResponse.getStatusLine().getStatusCode();
+            retryDelay = configRetryDelay(request, attempt, status, httpResponse.getFirstHeader("Retry-After"));
+
+            if (retryDelay < 0) {
+                content = handler.handleResponse(httpResponse);
+                // streaming body owns the connection from now on
+                isDetached = content != null && handler.isStreaming();
+            }
 
         } catch (HttpResponseException e) {
             LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
-            statusCode = e.getStatusCode();
+            status = e.getStatusCode();
 
         } catch (HttpHostConnectException e) {
             LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
-            statusCode = STATUS_CODE_CONNECTION_REFUSED;
+            status = STATUS_CODE_CONNECTION_REFUSED;
 
         } catch (HttpConnectTimeoutException | SocketTimeoutException e) {
             LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
-            statusCode = STATUS_CODE_CONNECTION_TIMEOUT;
+            status = STATUS_CODE_CONNECTION_TIMEOUT;
 
         } catch (Exception e) {
             LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
 
         } finally {
-            if (enablePrinting) {
-                LOGGER.info("\nHTTP RESP" + symbol + "(" + statusCode + ")\nHTTP RESP" + symbol + content);
+            if (isLogged) {
+                httpLogger.logResponse(symbol, status, content);
+            } else if (httpLogger == null && enablePrinting) {
+                LOGGER.info("\nHTTP RESP" + symbol + "(" + status + ")\nHTTP RESP" + symbol + content);
             }
 
-            try {
-                if (httpClient != null) {
-                    httpClient.close();
+            if (request != null) {
+                inFlightRequests.remove(request);
+            }
+
+            if (isStarted) {
+                metricsListener.onRequestCompleted(RequestMetrics.collect(context, request.getURI().getHost(), status, startTime));
+            }
+
+            if (permit != null) {
+                // aborted (ex: losing hedge) says nothing about health of host
+                if (request.isAborted()) {
+                    circuitBreaker.cancel(permit);
+                } else {
+                    circuitBreaker.release(permit, status);
+                }
+            }
+
+            if (endpoint != null) {
+                // aborted, or rejected before reaching the endpoint (rate limiter, circuit breaker)
+                if (request.isAborted() || !isSent) {
+                    loadBalancer.cancel(endpoint);
+                } else {
+                    loadBalancer.release(endpoint, status);
                 }
+            }
 
-                if (httpResponse != null) {
+            try {
+                // release connection back to pool (shared client is NOT closed)
+                if (httpResponse != null && !isDetached) {
                     httpResponse.close();
                 }
             } catch (IOException e) {
@@ -327,84 +858,183 @@ public class HttpUtils {
             }
         }
 
-        return Tuple.collect(statusCode, content);
+        // no response (ex: connection refused / timeout)
+        if (httpResponse == null && request != null) {
+            retryDelay = configRetryDelay(request, attempt, status, null);
+        }
+
+        return new Attempt<>(status, content, retryDelay);
     }
 
-    private CloseableHttpClient configHttpClient() throws NoSuchAlgorithmException, KeyManagementException {
+    /**
+     * delay before retrying the request
+     *
+     * @param request request of the attempt
+     * @param attempt attempt index
+     * @param status status code of the attempt
+     * @param retryAfter Retry-After header (null if absent)
+     * @return delay (unit: ms), -1 if NOT retrying
+     */
+    private long configRetryDelay(HttpRequestBase request, int attempt, int status, Header retryAfter) {
 
-        // get route planner
-        HttpRoutePlanner routePlanner = configHttpRoutePlanner();
+        if (retryPolicy == null || request.isAborted()) {
+            return -1L;
+        }
 
-        // get request configuration
-        RequestConfig requestConfig = configRequestConfig();
+        // request body can NOT be sent twice (ex: input stream)
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null && !entity.isRepeatable()) {
+                return -1L;
+            }
+        }
 
-        // get SSL connection socket factory
-        SSLConnectionSocketFactory connectionFactory = configSSLConnectionSocketFactory();
+        return retryPolicy.retryDelay(request.getURI().getHost(), attempt, status, retryAfter != null ? retryAfter.getValue() : null);
+    }
 
-//        // get interceptor
-//        HttpResponseInterceptor interceptor = configHttpResponseInterceptor();
+    /**
+     * print message by logger (if any) or printing setting
+     *
+     * @param message message
+     */
+    private void print(String message) {
+        if (httpLogger != null) {
+            httpLogger.log(message);
+        } else if (enablePrinting) {
+            LOGGER.info(message);
+        }
+    }
 
-        return HttpClientBuilder.create()
-                .setDefaultRequestConfig(requestConfig)
-                .setSSLSocketFactory(connectionFactory)
-                .setRetryHandler(new DefaultHttpRequestRetryHandler(maxRetryTimes, true))
-                .setRoutePlanner(routePlanner)
-//                .addInterceptorLast(interceptor)
-                .build();
+    /**
+     * abort all in-flight requests of this instance
+     * <p>
+     * the underlying connection is shut down, so a request blocked on socket I/O returns immediately
+     */
+    public void abort() {
+        for (HttpRequestBase request : inFlightRequests) {
+            request.abort();
+        }
     }
 
-    private HttpRoutePlanner configHttpRoutePlanner() {
+    /**
+     * send GET of each HttpUtils concurrently, and wait until all are done or deadline passes
+     *
+     * @param httpUtilsList request list
+     * @param timeout deadline of entire fan-out (unit: ms)
+     * @return response data (same order as request list)
+     */
+    public static List<Tuple.Pair<Integer, String>> invokeAll(List<HttpUtils> httpUtilsList, long timeout) {
+        return invokeAll(httpUtilsList, HttpUtils::get, timeout);
+    }
 
-        // 20220902 added: For HTTPS over proxy
-        // instead of DefaultProxyRoutePlanner, use HttpRoutePlanner with customized route logic
-        return (target, request, context) -> {
+    /**
+     * run action of each HttpUtils concurrently, and wait until all are done or deadline passes
+     * <p>
+     * runs on virtual threads when supported (Java 21+), otherwise on shared platform thread pool.
+     * request which is NOT done before deadline is cancelled & aborted, and its result is STATUS_CODE_CONNECTION_TIMEOUT.
+     * only the request sent by the action is aborted, other calls on the same (shared) instance are NOT affected.
+     * request which can NOT get a thread (platform pool is saturated) is NOT sent, and its result is STATUS_CODE_BULKHEAD_FULL.
+     *
+     * @param httpUtilsList request list
+     * @param action request action (ex: httpUtils -> httpUtils.postJson(json))
+     * @param timeout deadline of entire fan-out (unit: ms)
+     * @return response data (same order as request list)
+     */
+    public static List<Tuple.Pair<Integer, String>> invokeAll(
+            List<HttpUtils> httpUtilsList,
+            Function<HttpUtils, Tuple.Pair<Integer, String>> action,
+            long timeout) {
+
+        List<Tuple.Pair<Integer, String>> results = new ArrayList<>(httpUtilsList.size());
+        List<Future<Tuple.Pair<Integer, String>>> futures = new ArrayList<>(httpUtilsList.size());
+        List<AtomicReference<HttpRequestBase>> requests = new ArrayList<>(httpUtilsList.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        boolean interrupted = false;
+
+        ExecutorService executor = FanOutExecutors.acquire();
+        try {
+            for (HttpUtils httpUtils : httpUtilsList) {
+                AtomicReference<HttpRequestBase> request = new AtomicReference<>();
+                requests.add(request);
+                try {
+                    futures.add(executor.submit(() -> {
+                        fanOutRequest.set(request);
+                        try {
+                            return action.apply(httpUtils);
+                        } finally {
+                            fanOutRequest.remove();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    // never run inline, it would block the caller past the deadline
+                    LOGGER.severe("[" + e.getClass().getName() + "]:: fan-out executor is saturated");
+                    futures.add(CompletableFuture.completedFuture(Tuple.collect(STATUS_CODE_BULKHEAD_FULL, null)));
+                }
+            }
 
-            HttpHost proxy = useProxy ? new HttpHost(proxyServerAddress, proxyServerPort, proxyServerProtocol) : null;
-            boolean isSecure = "https".equalsIgnoreCase(target.getSchemeName());
-            RouteInfo.TunnelType tunnelType = useProxy ? RouteInfo.TunnelType.TUNNELLED : RouteInfo.TunnelType.PLAIN;
-            RouteInfo.LayerType layerType = "https".equalsIgnoreCase(target.getSchemeName()) ? RouteInfo.LayerType.LAYERED : RouteInfo.LayerType.PLAIN;
+            for (int i = 0; i < futures.size(); i++) {
 
-            return new HttpRoute(target, null, proxy, isSecure, tunnelType, layerType);
-        };
-    }
+                Future<Tuple.Pair<Integer, String>> future = futures.get(i);
+                if (interrupted) {
+                    cancel(future, requests.get(i));
+                    results.add(Tuple.collect(STATUS_CODE_UNKNOWN, null));
+                    continue;
+                }
 
-    private RequestConfig configRequestConfig() {
+                try {
+                    results.add(future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
 
-        // add default request configuration (timeout)
-        RequestConfig.Builder rcb = RequestConfig.custom()
-                .setConnectTimeout(maxConnectTimeout)
-                .setConnectionRequestTimeout(maxConnectTimeout)
-                .setSocketTimeout(maxConnectTimeout);
+                } catch (TimeoutException e) {
+                    // structured cancellation: nothing outlives the fan-out
+                    cancel(future, requests.get(i));
+                    results.add(Tuple.collect(STATUS_CODE_CONNECTION_TIMEOUT, null));
 
-        return rcb.build();
-    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancel(future, requests.get(i));
+                    results.add(Tuple.collect(STATUS_CODE_UNKNOWN, null));
 
-    private SSLConnectionSocketFactory configSSLConnectionSocketFactory() throws NoSuchAlgorithmException, KeyManagementException {
+                } catch (ExecutionException e) {
+                    LOGGER.severe("[" + e.getCause().getClass().getName() + "]:: " + e.getCause().getMessage());
+                    results.add(Tuple.collect(STATUS_CODE_UNKNOWN, null));
+                }
+            }
 
-        SSLContext sslContext = SSLContext.getInstance(SSLConnectionSocketFactory.TLS);
-        sslContext.init(new KeyManager[0], new TrustManager[] { trustManager }, new SecureRandom());
+        } finally {
+            FanOutExecutors.release(executor);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
 
-        SSLContext.setDefault(sslContext);
-        // HostnameVerifier hostnameVerifier = (hostname, session) -> true;
+        return results;
+    }
 
-        HostnameVerifier hostnameVerifier = (hostname, session) -> {
+    /**
+     * cancel task of invokeAll, and abort the request it is executing (if any)
+     *
+     * @param future task
+     * @param request request being executed by the task
+     */
+    private static void cancel(Future<?> future, AtomicReference<HttpRequestBase> request) {
 
-            boolean isVerified;
-            if (allowedHostnames != null && !allowedHostnames.isEmpty()) {
-                isVerified = allowedHostnames.contains(hostname);
-            } else {
-                // directly pass when allowed hostname list is NOT set
-                isVerified = true;
-            }
+        // interrupt first, then a request set after this read is aborted by the task itself
+        future.cancel(true);
+        HttpRequestBase httpRequest = request.get();
+        if (httpRequest != null) {
+            httpRequest.abort();
+        }
+    }
 
-            if(!isVerified && enablePrinting) {
-                LOGGER.warning("{" + hostname + "} is not in allowed hostname list");
-            }
+    private RequestConfig configRequestConfig() {
 
-            return isVerified;
-        };
+        // add default request configuration (timeout)
+        RequestConfig.Builder rcb = RequestConfig.custom()
+                .setConnectTimeout(maxConnectTimeout)
+                .setConnectionRequestTimeout(maxConnectTimeout)
+                .setSocketTimeout(maxConnectTimeout);
 
-        return new SSLConnectionSocketFactory(sslContext, hostnameVerifier);
+        return rcb.build();
     }
 
 //    private HttpResponseInterceptor configHttpResponseInterceptor() {
@@ -417,6 +1047,14 @@ public class HttpUtils {
 //        };
 //    }
 
+    /**
+     * whether the last completed call of this instance is successful
+     * <p>
+     * NOTE: with async variants or an instance shared by threads, the last completed call may NOT be yours,
+     * check status code of the response instead (ex: isStatusSuccessful(response.getA()))
+     *
+     * @return true if status code of the last completed call is 2XX
+     */
     public boolean isSuccessful() {
         return isStatusSuccessful(statusCode);
     }
@@ -462,6 +1100,78 @@ public class HttpUtils {
         return enablePrinting;
     }
 
+    public HttpEngine getEngine() {
+        return engine;
+    }
+
+    public Http2Engine getHttp2Engine() {
+        return http2Engine;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    public String getHedgeUrl() {
+        return hedgeUrl;
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    public HttpMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    public HttpLogger getHttpLogger() {
+        return httpLogger;
+    }
+
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * result of one attempt
+     *
+     * @param <T> body type
+     */
+    private static class Attempt<T> {
+
+        private final int status;
+        private final T content;
+
+        // unit: ms, -1 if NOT retrying
+        private final long retryDelay;
+
+        private Attempt(int status, T content, long retryDelay) {
+            this.status = status;
+            this.content = content;
+            this.retryDelay = retryDelay;
+        }
+    }
+
     public static class Builder {
 
         private String url;
@@ -483,6 +1193,51 @@ public class HttpUtils {
         // print (default: true)
         private boolean enablePrinting = true;
 
+        // client engine (default: shared engine of identical connection-level setting)
+        private HttpEngine engine;
+
+        // send by JDK HttpClient over HTTP/2 (default: false), or by given HTTP/2 engine
+        private boolean enableHttp2 = false;
+        private Http2Engine http2Engine;
+
+        // response cache for GET (default: disabled)
+        private ResponseCache responseCache;
+
+        // NOTE: coalescer, retry policy, circuit breaker, rate limiter, hedge policy & load balancer keep their state
+        // (in-flight calls, budget, circuit, tokens, latency, endpoint health) in the instance,
+        // share one instance among every HttpUtils calling the same service, NOT one per HttpUtils
+
+        // request coalescer for GET (default: disabled)
+        private RequestCoalescer requestCoalescer;
+
+        // retry policy on status code (default: disabled, only I/O failure is retried by maxRetryTimes)
+        private RetryPolicy retryPolicy;
+
+        // circuit breaker & bulkhead per host (default: disabled)
+        private CircuitBreaker circuitBreaker;
+
+        // client-side rate limiter (default: disabled)
+        private RateLimiter rateLimiter;
+
+        // hedging for GET (default: disabled), hedge url (default: same url)
+        private HedgePolicy hedgePolicy;
+        private String hedgeUrl;
+
+        // load balancer across replicas (default: disabled), url must be relative when enabled (ex: /api/items)
+        private LoadBalancer loadBalancer;
+
+        // metrics listener (default: disabled)
+        private HttpMetricsListener metricsListener;
+
+        // sampled async logger (default: disabled, enablePrinting is used)
+        private HttpLogger httpLogger;
+
+        // gzip request body of at least this size (unit: byte, default: -1 disabled, 0: always)
+        private int requestCompressionThreshold = -1;
+
+        // inflater buffer of compressed response (unit: byte), ignored when engine is given
+        private int decompressionBufferSize = 8192;
+
         public Builder() {
         }
 
@@ -536,6 +1291,90 @@ public class HttpUtils {
             return this;
         }
 
+        public Builder setEngine(HttpEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * send by JDK HttpClient over HTTP/2
+         * <p>
+         * NOTE: hostname is ALWAYS verified against the server certificate (unlike the default engine, which only
+         * checks allowed hostname list), so https to a host whose certificate does NOT match (ex: IP) fails
+         *
+         * @param enableHttp2 true to use the shared HTTP/2 engine of identical setting
+         * @return builder
+         */
+        public Builder setEnableHttp2(boolean enableHttp2) {
+            this.enableHttp2 = enableHttp2;
+            return this;
+        }
+
+        public Builder setHttp2Engine(Http2Engine http2Engine) {
+            this.http2Engine = http2Engine;
+            return this;
+        }
+
+        public Builder setResponseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        public Builder setRequestCoalescer(RequestCoalescer requestCoalescer) {
+            this.requestCoalescer = requestCoalescer;
+            return this;
+        }
+
+        public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder setCircuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public Builder setRateLimiter(RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        public Builder setHedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        public Builder setHedgeUrl(String hedgeUrl) {
+            this.hedgeUrl = hedgeUrl;
+            return this;
+        }
+
+        public Builder setLoadBalancer(LoadBalancer loadBalancer) {
+            this.loadBalancer = loadBalancer;
+            return this;
+        }
+
+        public Builder setMetricsListener(HttpMetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        public Builder setHttpLogger(HttpLogger httpLogger) {
+            this.httpLogger = httpLogger;
+            return this;
+        }
+
+        public Builder setRequestCompressionThreshold(int requestCompressionThreshold) {
+            this.requestCompressionThreshold = requestCompressionThreshold;
+            return this;
+        }
+
+        public Builder setDecompressionBufferSize(int decompressionBufferSize) {
+            this.decompressionBufferSize = decompressionBufferSize;
+            return this;
+        }
+
         public HttpUtils build() {
             return new HttpUtils(this);
         }
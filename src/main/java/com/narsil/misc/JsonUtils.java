@@ -6,32 +6,68 @@ import com.google.gson.FieldNamingStrategy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.narsil.misc.json.JsonArrayIterator;
+import com.narsil.misc.json.JsonPath;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * json operation toolkit
  * <p>
  * supports the conversion of several data type,
  * including Json-format string (JS), Google Json element (JE), Java Map (Map) and serializable value object (VO).
+ * <p>
+ * Gson is thread-safe and caches the type adapter of every converted type, so instances are built once
+ * per (field naming strategy, exclusion strategy) and reused; a preconfigured Gson can also be passed to each conversion.
  *
  * @author iamnarsil
- * @version 20231030
+ * @version 20261018
  * @since 20230328
  */
 public class JsonUtils {
 
     private static final Logger LOGGER = Logger.getLogger("JsonUtils");
 
+    // date format of every gson built here
+    private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    // gson without strategy (most calls)
+    private static final Gson DEFAULT_GSON = newGsonBuilder().create();
+
+    // gson per (fnStrategy, exStrategy)
+    private static final Map<List<Object>, Gson> GSON_CACHE = new ConcurrentHashMap<>();
+
+    // strategies created per call (ex: lambda) would grow the cache forever -> build uncached beyond this size
+    private static final int MAX_GSON_CACHE_SIZE = 256;
+
+    // target type of every map conversion (use LinkedHashMap to keep order)
+    private static final Type MAP_TYPE = new TypeToken<LinkedHashMap<String, Object>>(){}.getType();
+
     /**
      * check json is empty or not
      *
@@ -55,6 +91,55 @@ public class JsonUtils {
         return true;
     }
 
+    /**
+     * new gson builder with default settings of this toolkit (html escaping disabled, date format),
+     * to build a preconfigured gson (ex: with type adapters)
+     *
+     * @return gson builder
+     */
+    public static GsonBuilder newGsonBuilder() {
+        return new GsonBuilder()
+                .disableHtmlEscaping()
+                .setDateFormat(DATE_FORMAT);
+    }
+
+    /**
+     * shared gson with default settings
+     *
+     * @return gson
+     */
+    public static Gson getGson() {
+        return DEFAULT_GSON;
+    }
+
+    /**
+     * shared gson with policy & strategy
+     * <p>
+     * strategies are compared by equals(), so reuse the same strategy instance (or an enum like FieldNamingPolicy)
+     * to hit the cache
+     *
+     * @param fnStrategy field naming strategy
+     * @param exStrategy exclusion strategy
+     * @return gson
+     */
+    public static Gson getGson(FieldNamingStrategy fnStrategy, ExclusionStrategy exStrategy) {
+
+        if (fnStrategy == null && exStrategy == null) {
+            return DEFAULT_GSON;
+        }
+
+        List<Object> key = Arrays.asList(fnStrategy, exStrategy);
+        Gson gson = GSON_CACHE.get(key);
+        if (gson != null) {
+            return gson;
+        }
+
+        if (GSON_CACHE.size() >= MAX_GSON_CACHE_SIZE) {
+            return constructGson(fnStrategy, exStrategy);
+        }
+        return GSON_CACHE.computeIfAbsent(key, k -> constructGson(fnStrategy, exStrategy));
+    }
+
     /**
      * construct gson with policy & strategy
      *
@@ -64,9 +149,7 @@ public class JsonUtils {
      */
     private static Gson constructGson(FieldNamingStrategy fnStrategy, ExclusionStrategy exStrategy) {
 
-        GsonBuilder gsonBuilder = new GsonBuilder()
-                .disableHtmlEscaping()
-                .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        GsonBuilder gsonBuilder = newGsonBuilder();
 
         if (fnStrategy != null) {
             gsonBuilder.setFieldNamingStrategy(fnStrategy);
@@ -105,7 +188,18 @@ public class JsonUtils {
             FieldNamingStrategy fnStrategy,
             ExclusionStrategy exStrategy) {
 
-        Gson gson = constructGson(fnStrategy, exStrategy);
+        return voToJs(vo, typeOfT, getGson(fnStrategy, exStrategy));
+    }
+
+    /**
+     * value object -> json string (with preconfigured gson)
+     *
+     * @param vo value object
+     * @param typeOfT class type of value object (ex: ValueObject.class)
+     * @param gson gson (should be reused)
+     * @return json string
+     */
+    public static String voToJs(Object vo, Type typeOfT, Gson gson) {
         return gson.toJson(vo, typeOfT);
     }
 
@@ -135,7 +229,18 @@ public class JsonUtils {
             FieldNamingStrategy fnStrategy,
             ExclusionStrategy exStrategy) {
 
-        Gson gson = constructGson(fnStrategy, exStrategy);
+        return voToJe(vo, typeOfT, getGson(fnStrategy, exStrategy));
+    }
+
+    /**
+     * value object -> google json object (with preconfigured gson)
+     *
+     * @param vo value object
+     * @param typeOfT class type of value object (ex: ValueObject.class)
+     * @param gson gson (should be reused)
+     * @return google json object
+     */
+    public static JsonElement voToJe(Object vo, Type typeOfT, Gson gson) {
         return gson.toJsonTree(vo, typeOfT);
     }
 
@@ -148,14 +253,8 @@ public class JsonUtils {
      */
     public static Map<String, Object> voToMap(Object vo, Type typeOfT) {
 
-        // value object -> json string
-        String jsonString = voToJs(vo, typeOfT);
-
-        // use LinkedHashMap to keep order
-        Type typeOfGeneric = new TypeToken<LinkedHashMap<String, Object>>(){}.getType();
-
-        // json string -> map
-        return jsToVo(jsonString, typeOfGeneric);
+        // value object -> google json object -> map, without intermediate json string
+        return jeToMap(voToJe(vo, typeOfT));
     }
 
     /**
@@ -186,8 +285,21 @@ public class JsonUtils {
             FieldNamingStrategy fnStrategy,
             ExclusionStrategy exStrategy) {
 
+        return jsToVo(jsonString, typeOfT, getGson(fnStrategy, exStrategy));
+    }
+
+    /**
+     * json string -> value object (with preconfigured gson)
+     *
+     * @param jsonString json string
+     * @param typeOfT class type of value object (ex: ValueObject.class)
+     * @param gson gson (should be reused)
+     * @param <T> value object
+     * @return value object
+     */
+    public static <T> T jsToVo(String jsonString, Type typeOfT, Gson gson) {
+
         try {
-            Gson gson = constructGson(fnStrategy, exStrategy);
             return gson.fromJson(jsonString, typeOfT);
         } catch (Exception e) {
             LOGGER.severe(e.getMessage());
@@ -212,6 +324,43 @@ public class JsonUtils {
         return null;
     }
 
+    /**
+     * json string -> values at paths (streaming, without building the full tree)
+     * <p>
+     * for pulling a few fields out of a big payload. subtrees off the paths are skipped,
+     * and reading stops as soon as every path is found.
+     *
+     * @param jsonString json string
+     * @param paths paths (ex: "route.target", "items[0].id", see {@link JsonPath})
+     * @return path -> google json object (path NOT found is absent), null if json is malformed
+     */
+    public static Map<String, JsonElement> extract(String jsonString, String... paths) {
+        return extract(new StringReader(jsonString), paths);
+    }
+
+    /**
+     * reader -> values at paths (streaming, without building the full tree)
+     * <p>
+     * the reader is NOT closed, and is NOT read further once every path is found
+     *
+     * @param reader reader
+     * @param paths paths (ex: "route.target", "items[0].id", see {@link JsonPath})
+     * @return path -> google json object (path NOT found is absent), null if json is malformed
+     */
+    public static Map<String, JsonElement> extract(Reader reader, String... paths) {
+
+        try {
+            // lenient, same as jsToJe
+            JsonReader jsonReader = new JsonReader(reader);
+            jsonReader.setLenient(true);
+            return JsonPath.extract(jsonReader, paths);
+        } catch (Exception e) {
+            LOGGER.severe(e.getMessage());
+        }
+
+        return null;
+    }
+
     /**
      * json string -> map
      *
@@ -220,11 +369,8 @@ public class JsonUtils {
      */
     public static Map<String, Object> jsToMap(String jsonString) {
 
-        // use LinkedHashMap to keep order
-        Type typeOfGeneric = new TypeToken<LinkedHashMap<String, Object>>(){}.getType();
-
         // json string -> map
-        return jsToVo(jsonString, typeOfGeneric);
+        return jsToVo(jsonString, MAP_TYPE);
     }
 
     /**
@@ -255,8 +401,21 @@ public class JsonUtils {
             FieldNamingStrategy fnStrategy,
             ExclusionStrategy exStrategy) {
 
+        return jeToVo(jsonElement, typeOfT, getGson(fnStrategy, exStrategy));
+    }
+
+    /**
+     * google json object -> value object (with preconfigured gson)
+     *
+     * @param jsonElement google json object
+     * @param typeOfT class type of value object (ex: ValueObject.class)
+     * @param gson gson (should be reused)
+     * @param <T> value object
+     * @return value object
+     */
+    public static <T> T jeToVo(JsonElement jsonElement, Type typeOfT, Gson gson) {
+
         try {
-            Gson gson = constructGson(fnStrategy, exStrategy);
             return gson.fromJson(jsonElement, typeOfT);
         } catch (Exception e) {
             LOGGER.severe(e.getMessage());
@@ -283,16 +442,8 @@ public class JsonUtils {
      */
     public static Map<String, Object> jeToMap(JsonElement jsonElement) {
 
-        GsonBuilder gsonBuilder = new GsonBuilder()
-                .disableHtmlEscaping()
-                .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-
-        // use LinkedHashMap to keep order
-        Type typeOfGeneric = new TypeToken<LinkedHashMap<String, Object>>(){}.getType();
-
         try {
-            Gson gson = gsonBuilder.create();
-            return gson.fromJson(jsonElement, typeOfGeneric);
+            return DEFAULT_GSON.fromJson(jsonElement, MAP_TYPE);
         }  catch (Exception e) {
             LOGGER.severe(e.getMessage());
         }
@@ -310,14 +461,8 @@ public class JsonUtils {
      */
     public static <T> T mapToVo(Map<String, Object> map, Type typeOfT) {
 
-        // use LinkedHashMap to keep order
-        Type typeOfGeneric = new TypeToken<LinkedHashMap<String, Object>>(){}.getType();
-
-        // map -> json string
-        String jsonString = voToJs(map, typeOfGeneric);
-
-        // json string -> value object
-        return jsToVo(jsonString, typeOfT);
+        // map -> google json object -> value object, without intermediate json string
+        return jeToVo(DEFAULT_GSON.toJsonTree(map, MAP_TYPE), typeOfT);
     }
 
     /**
@@ -328,14 +473,11 @@ public class JsonUtils {
      */
     public static String mapToJs(Map<String, Object> map) {
 
-        // use LinkedHashMap to keep order
-        Type typeOfGeneric = new TypeToken<LinkedHashMap<String, Object>>(){}.getType();
-
         // use TreeMap to guarantee natural ordering of keys
         TreeMap<String, Object> treeMap = new TreeMap<>(map);
 
         // map -> json string
-        return voToJs(treeMap, typeOfGeneric);
+        return voToJs(treeMap, MAP_TYPE);
     }
 
     /**
@@ -346,18 +488,69 @@ public class JsonUtils {
      */
     public static JsonElement mapToJe(Map<String, Object> map) {
 
-        GsonBuilder gsonBuilder = new GsonBuilder()
-                .disableHtmlEscaping()
-                .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-
-        // use LinkedHashMap to keep order
-        Type typeOfGeneric = new TypeToken<LinkedHashMap<String, Object>>(){}.getType();
-
         // use TreeMap to guarantee natural ordering of keys
         TreeMap<String, Object> treeMap = new TreeMap<>(map);
 
-        Gson gson = gsonBuilder.create();
-        return gson.toJsonTree(treeMap, typeOfGeneric);
+        return DEFAULT_GSON.toJsonTree(treeMap, MAP_TYPE);
+    }
+
+    /**
+     * reader -> value object (streaming, without intermediate json string)
+     *
+     * @param reader reader
+     * @param typeOfT class type of value object (ex: ValueObject.class)
+     * @param <T> value object
+     * @return value object
+     */
+    public static <T> T readerToVo(Reader reader, Type typeOfT) {
+        return readerToVo(reader, typeOfT, DEFAULT_GSON);
+    }
+
+    /**
+     * reader -> value object (streaming, with preconfigured gson)
+     *
+     * @param reader reader
+     * @param typeOfT class type of value object (ex: ValueObject.class)
+     * @param gson gson (should be reused)
+     * @param <T> value object
+     * @return value object
+     */
+    public static <T> T readerToVo(Reader reader, Type typeOfT, Gson gson) {
+
+        try {
+            return gson.fromJson(new JsonReader(reader), typeOfT);
+        } catch (Exception e) {
+            LOGGER.severe(e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * reader (json array) -> element iterator (streaming, one element in memory at a time)
+     * <p>
+     * the iterator should be closed after use, which also closes the reader
+     *
+     * @param reader reader
+     * @param typeOfT class type of array element (ex: ValueObject.class)
+     * @param <T> value object
+     * @return element iterator
+     */
+    public static <T> JsonArrayIterator<T> readerToIterator(Reader reader, Type typeOfT) {
+        return readerToIterator(reader, typeOfT, DEFAULT_GSON);
+    }
+
+    /**
+     * reader (json array) -> element iterator (streaming, with preconfigured gson)
+     *
+     * @param reader reader
+     * @param typeOfT class type of array element (ex: ValueObject.class)
+     * @param gson gson (should be reused)
+     * @param <T> value object
+     * @return element iterator
+     */
+    public static <T> JsonArrayIterator<T> readerToIterator(Reader reader, Type typeOfT, Gson gson) {
+        return new JsonArrayIterator<>(gson, new JsonReader(reader), typeOfT);
     }
 
     /**
@@ -370,13 +563,8 @@ public class JsonUtils {
      */
     public static <T> T fileToVo(File file, Type typeOfT) {
 
-        GsonBuilder gsonBuilder = new GsonBuilder()
-                .disableHtmlEscaping()
-                .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-
-        try (FileReader reader = new FileReader(file)) {
-            Gson gson = gsonBuilder.create();
-            return gson.fromJson(reader, typeOfT);
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return DEFAULT_GSON.fromJson(reader, typeOfT);
         } catch (Exception e) {
             LOGGER.severe(e.getMessage());
         }
@@ -384,6 +572,92 @@ public class JsonUtils {
         return null;
     }
 
+    /**
+     * file (top-level json array) -> element iterator (streaming, one element in memory at a time)
+     * <p>
+     * the file is read as buffered UTF-8, the iterator should be closed after use
+     *
+     * @param file file
+     * @param typeOfT class type of array element (ex: ValueObject.class)
+     * @param <T> value object
+     * @return element iterator
+     * @throws JsonIOException file can NOT be opened or read
+     */
+    public static <T> JsonArrayIterator<T> fileToIterator(File file, Type typeOfT) {
+        return fileToIterator(file, null, typeOfT);
+    }
+
+    /**
+     * file (json array at path) -> element iterator (streaming, one element in memory at a time)
+     * <p>
+     * everything before the array is skipped without being materialized, the iterator should be closed after use
+     *
+     * @param file file
+     * @param path path of the array (ex: "data.items", see {@link JsonPath}), null for top-level array
+     * @param typeOfT class type of array element (ex: ValueObject.class)
+     * @param <T> value object
+     * @return element iterator
+     * @throws JsonIOException file can NOT be opened or read
+     * @throws JsonParseException path NOT found, or NOT an array
+     */
+    public static <T> JsonArrayIterator<T> fileToIterator(File file, String path, Type typeOfT) {
+
+        JsonPath jsonPath = JsonPath.compile(path);
+
+        JsonReader jsonReader;
+        try {
+            jsonReader = new JsonReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+
+        boolean isPositioned = false;
+        try {
+            jsonPath.seek(jsonReader);
+            if (jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+                throw new JsonParseException("json value at path is NOT an array: " + jsonPath);
+            }
+            JsonArrayIterator<T> iterator = new JsonArrayIterator<>(DEFAULT_GSON, jsonReader, typeOfT);
+            isPositioned = true;
+            return iterator;
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        } finally {
+            // nobody else can close the file on failure
+            if (!isPositioned) {
+                try {
+                    jsonReader.close();
+                } catch (IOException e) {
+                    LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * file (json array at path) -> element stream (streaming, one element in memory at a time)
+     * <p>
+     * the stream should be closed after use (ex: try-with-resources), which also closes the file
+     *
+     * @param file file
+     * @param path path of the array (ex: "data.items", see {@link JsonPath}), null for top-level array
+     * @param typeOfT class type of array element (ex: ValueObject.class)
+     * @param <T> value object
+     * @return element stream (sequential, ordered)
+     */
+    public static <T> Stream<T> fileToStream(File file, String path, Type typeOfT) {
+
+        JsonArrayIterator<T> iterator = fileToIterator(file, path, typeOfT);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        iterator.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
     /**
      * file -> json string
      *
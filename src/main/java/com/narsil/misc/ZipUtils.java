@@ -6,6 +6,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -40,10 +41,30 @@ public class ZipUtils {
 
         String output = null;
 
+        byte[] bytes = gzipCompress(input);
+
+        // base64 encode
+        if (bytes != null && bytes.length > 0) {
+            output = Base64.getEncoder().encodeToString(bytes);
+        }
+
+        return output;
+    }
+
+    /**
+     * using gzip to compress byte array (ex: request body with Content-Encoding: gzip)
+     *
+     * @param input byte array
+     * @return compressed byte array
+     */
+    public static byte[] gzipCompress(byte[] input) {
+
+        byte[] output = null;
+
         if (input != null && input.length > 0) {
 
             // try-catch-resource
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(64, input.length / 4));
                     GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
 
                 // gzip compress
@@ -51,12 +72,7 @@ public class ZipUtils {
                 gzos.flush();
                 gzos.close();
 
-                byte[] bytes = baos.toByteArray();
-
-                // base64 encode
-                if (bytes.length > 0) {
-                    output = Base64.getEncoder().encodeToString(bytes);
-                }
+                output = baos.toByteArray();
 
             } catch (Exception e) {
                 LOGGER.severe(e.getMessage());
@@ -67,6 +83,18 @@ public class ZipUtils {
         return output;
     }
 
+    /**
+     * wrap gzip stream to uncompress on the fly (ex: response body with Content-Encoding: gzip)
+     *
+     * @param input compressed stream
+     * @param bufferSize size of inflater input buffer (unit: byte)
+     * @return uncompressed stream
+     * @throws IOException if gzip header is invalid
+     */
+    public static InputStream gzipUncompress(InputStream input, int bufferSize) throws IOException {
+        return new GZIPInputStream(input, bufferSize);
+    }
+
     /**
      * base64 decode firstly, then using gzip to uncompress
      * @param input encoded data
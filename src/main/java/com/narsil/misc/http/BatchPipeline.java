@@ -0,0 +1,352 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * batch request pipeline with bounded concurrency
+ * <p>
+ * every request is sent by one template HttpUtils (one pooled engine, header, retry, circuit breaker, rate limiter...),
+ * at most maxConcurrency at a time. the next spec is pulled from the source only when a slot is free,
+ * so a lazy source (ex: stream of a large file) is never materialized (backpressure).
+ * results are delivered to the consumer one at a time, in input order (ordered) or as they complete.
+ * in ordered mode, a slot is freed only when its result is delivered, so the reorder buffer holds at most maxConcurrency results.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class BatchPipeline {
+
+    private static final Logger LOGGER = Logger.getLogger("BatchPipeline");
+
+    private final HttpUtils httpUtils;
+    private final int maxConcurrency;
+    private final boolean isOrdered;
+
+    public BatchPipeline(Builder builder) {
+
+        this.httpUtils = builder.httpUtils;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.isOrdered = builder.isOrdered;
+    }
+
+    /**
+     * send every request, and wait until all results are delivered
+     *
+     * @param requests request specs (pulled lazily)
+     * @param consumer result consumer (never called concurrently)
+     * @return summary of the batch
+     */
+    public Summary execute(Stream<BatchRequest> requests, Consumer<Response> consumer) {
+        return execute(requests::iterator, consumer);
+    }
+
+    /**
+     * send every request, and wait until all results are delivered
+     *
+     * @param requests request specs (pulled lazily)
+     * @param consumer result consumer (never called concurrently)
+     * @return summary of the batch
+     */
+    public Summary execute(Iterable<BatchRequest> requests, Consumer<Response> consumer) {
+
+        Run run = new Run(consumer);
+        Semaphore slots = new Semaphore(maxConcurrency);
+        long startTime = System.nanoTime();
+
+        ExecutorService executor = FanOutExecutors.acquire();
+        try {
+            Iterator<BatchRequest> iterator = requests.iterator();
+            for (long index = 0; ; index++) {
+
+                try {
+                    slots.acquire();
+                } catch (InterruptedException e) {
+                    // stop pulling, wait for requests already sent
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                if (!iterator.hasNext()) {
+                    slots.release();
+                    break;
+                }
+
+                BatchRequest request = iterator.next();
+                long requestIndex = index;
+                try {
+                    executor.execute(() -> {
+                        long requestStart = System.nanoTime();
+                        Tuple.Pair<Integer, String> result;
+                        try {
+                            result = httpUtils.send(request);
+                        } catch (RuntimeException e) {
+                            // slot must come back whatever happens
+                            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+                            result = Tuple.collect(HttpUtils.STATUS_CODE_UNKNOWN, null);
+                        }
+                        run.complete(new Response(requestIndex, request, result.getA(), result.getB(), System.nanoTime() - requestStart), slots);
+                    });
+                } catch (RejectedExecutionException e) {
+                    // NOT sent, reported like any other failed request
+                    LOGGER.severe("[" + e.getClass().getName() + "]:: fan-out executor is saturated");
+                    run.complete(new Response(requestIndex, request, HttpUtils.STATUS_CODE_BULKHEAD_FULL, null, 0L), slots);
+                }
+            }
+
+            // every slot back -> every result is delivered
+            slots.acquireUninterruptibly(maxConcurrency);
+            slots.release(maxConcurrency);
+
+        } finally {
+            FanOutExecutors.release(executor);
+        }
+
+        return run.summarize(System.nanoTime() - startTime);
+    }
+
+    /**
+     * send every request, and collect results
+     *
+     * @param requests request specs
+     * @return results (input order)
+     */
+    public List<Response> executeAll(Iterable<BatchRequest> requests) {
+
+        List<Response> responses = new ArrayList<>();
+        execute(requests, responses::add);
+
+        if (!isOrdered) {
+            responses.sort(Comparator.comparingLong(Response::getIndex));
+        }
+        return responses;
+    }
+
+    public HttpUtils getHttpUtils() {
+        return httpUtils;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public boolean isOrdered() {
+        return isOrdered;
+    }
+
+    /**
+     * state of one execution
+     */
+    private class Run {
+
+        private final Consumer<Response> consumer;
+
+        // ordered mode: completed but NOT yet delivered
+        private final Map<Long, Response> reorderBuffer = new HashMap<>();
+        private long nextIndex = 0L;
+
+        // statistics
+        private final HttpMetrics.LatencyHistogram latency = new HttpMetrics.LatencyHistogram();
+        private final LongAdder successCount = new LongAdder();
+        private final Map<Integer, Long> statusCounts = new HashMap<>();
+
+        private Run(Consumer<Response> consumer) {
+            this.consumer = consumer;
+        }
+
+        private synchronized void complete(Response response, Semaphore slots) {
+
+            latency.record(response.latency);
+            if (HttpUtils.isStatusSuccessful(response.statusCode)) {
+                successCount.increment();
+            }
+            statusCounts.merge(response.statusCode, 1L, Long::sum);
+
+            if (!isOrdered) {
+                deliver(response);
+                slots.release();
+                return;
+            }
+
+            reorderBuffer.put(response.index, response);
+            Response next;
+            while ((next = reorderBuffer.remove(nextIndex)) != null) {
+                deliver(next);
+                nextIndex++;
+                slots.release();
+            }
+        }
+
+        private void deliver(Response response) {
+            try {
+                consumer.accept(response);
+            } catch (RuntimeException e) {
+                // one bad result must NOT stall the batch
+                LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            }
+        }
+
+        private synchronized Summary summarize(long elapsed) {
+            return new Summary(latency.getCount(), successCount.sum(), elapsed, latency, Map.copyOf(statusCounts));
+        }
+    }
+
+    /**
+     * result of one request
+     */
+    public static class Response {
+
+        private final long index;
+        private final BatchRequest request;
+        private final int statusCode;
+        private final String content;
+
+        // unit: ns
+        private final long latency;
+
+        private Response(long index, BatchRequest request, int statusCode, String content, long latency) {
+            this.index = index;
+            this.request = request;
+            this.statusCode = statusCode;
+            this.content = content;
+            this.latency = latency;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        public BatchRequest getRequest() {
+            return request;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public long getLatency() {
+            return latency;
+        }
+
+        public boolean isSuccessful() {
+            return HttpUtils.isStatusSuccessful(statusCode);
+        }
+    }
+
+    /**
+     * aggregated timing of a batch
+     */
+    public static class Summary {
+
+        private final long count;
+        private final long successCount;
+
+        // unit: ns
+        private final long elapsed;
+
+        private final HttpMetrics.LatencyHistogram latency;
+        private final Map<Integer, Long> statusCounts;
+
+        private Summary(long count, long successCount, long elapsed, HttpMetrics.LatencyHistogram latency, Map<Integer, Long> statusCounts) {
+            this.count = count;
+            this.successCount = successCount;
+            this.elapsed = elapsed;
+            this.latency = latency;
+            this.statusCounts = statusCounts;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSuccessCount() {
+            return successCount;
+        }
+
+        public long getFailureCount() {
+            return count - successCount;
+        }
+
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * @return requests per second
+         */
+        public double getThroughput() {
+            return elapsed <= 0 ? 0.0 : count * 1_000_000_000.0 / elapsed;
+        }
+
+        /**
+         * @return latency histogram of requests (unit: µs)
+         */
+        public HttpMetrics.LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public Map<Integer, Long> getStatusCounts() {
+            return statusCounts;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", success=" + successCount + ", elapsed=" + elapsed / 1_000_000L + " ms"
+                    + ", throughput=" + String.format("%.1f", getThroughput()) + "/s"
+                    + ", latency(mean/p50/p99)=" + String.format("%.0f", latency.getMean()) + "/" + latency.percentile(0.5)
+                    + "/" + latency.percentile(0.99) + " µs, status=" + statusCounts;
+        }
+    }
+
+    public static class Builder {
+
+        // template of every request (engine, header, retry, rate limiter...)
+        private HttpUtils httpUtils;
+
+        private int maxConcurrency = 16;
+
+        // deliver results in input order (default) or as they complete
+        private boolean isOrdered = true;
+
+        public Builder() {
+        }
+
+        public Builder setHttpUtils(HttpUtils httpUtils) {
+            this.httpUtils = httpUtils;
+            return this;
+        }
+
+        public Builder setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public Builder setOrdered(boolean isOrdered) {
+            this.isOrdered = isOrdered;
+            return this;
+        }
+
+        public BatchPipeline build() {
+            return new BatchPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.narsil.misc.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * spec of one request in a batch (see {@link BatchPipeline})
+ * <p>
+ * GET when there is no entity, otherwise POST. url may be omitted (url of the template HttpUtils is used),
+ * or relative when the template has a load balancer.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class BatchRequest {
+
+    private final String url;
+    private final Map<String, String> header;
+    private final HttpEntity entity;
+
+    // caller's correlation key (ex: webhook subscriber id), NOT sent
+    private final Object tag;
+
+    public BatchRequest(Builder builder) {
+
+        this.url = builder.url;
+        this.header = builder.header;
+        this.entity = builder.entity;
+        this.tag = builder.tag;
+    }
+
+    /**
+     * GET url
+     *
+     * @param url url
+     * @return request spec
+     */
+    public static BatchRequest get(String url) {
+        return new Builder().setUrl(url).build();
+    }
+
+    /**
+     * POST JSON data to url
+     *
+     * @param url url (null -> url of template)
+     * @param json json
+     * @return request spec
+     */
+    public static BatchRequest postJson(String url, String json) {
+        return new Builder().setUrl(url).setJson(json).build();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeader() {
+        return header;
+    }
+
+    public HttpEntity getEntity() {
+        return entity;
+    }
+
+    public Object getTag() {
+        return tag;
+    }
+
+    public static class Builder {
+
+        private String url;
+        private Map<String, String> header;
+        private HttpEntity entity;
+        private Object tag;
+
+        public Builder() {
+        }
+
+        public Builder setUrl(String url) {
+            this.url = url;
+            return this;
+        }
+
+        // added on top of header of template
+        public Builder setHeader(Map<String, String> header) {
+            this.header = header;
+            return this;
+        }
+
+        public Builder setEntity(HttpEntity entity) {
+            this.entity = entity;
+            return this;
+        }
+
+        public Builder setJson(String json) {
+            this.entity = new StringEntity(json, ContentType.APPLICATION_JSON.withCharset(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        public Builder setText(String text) {
+            this.entity = new StringEntity(text, ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        public Builder setTag(Object tag) {
+            this.tag = tag;
+            return this;
+        }
+
+        public BatchRequest build() {
+            return new BatchRequest(this);
+        }
+    }
+}
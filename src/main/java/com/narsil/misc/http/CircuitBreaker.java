@@ -0,0 +1,318 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+import java.util.logging.Logger;
+
+/**
+ * per-host circuit breaker & bulkhead
+ * <p>
+ * CLOSED -> OPEN after consecutive failures, OPEN -> HALF_OPEN after open duration,
+ * HALF_OPEN -> CLOSED on a successful trial call (or back to OPEN on failure).
+ * every permit is tagged with the state it was given in, so a late outcome of a call started before a transition
+ * (ex: slow success after the circuit is open) is ignored, and only trial calls decide in HALF_OPEN.
+ * the bulkhead caps concurrent calls per host, so one slow host can NOT take every worker thread.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOGGER = Logger.getLogger("CircuitBreaker");
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    // unit: ms
+    private final long openDuration;
+
+    private final int halfOpenMaxCalls;
+
+    private final int maxConcurrentCalls;
+
+    // unit: ms
+    private final long maxWaitDuration;
+
+    private final IntPredicate failurePredicate;
+
+    private final Map<String, HostState> hostStates = new ConcurrentHashMap<>();
+
+    // statistics
+    private final LongAdder openRejectedCount = new LongAdder();
+    private final LongAdder bulkheadRejectedCount = new LongAdder();
+
+    public CircuitBreaker(Builder builder) {
+
+        this.failureThreshold = builder.failureThreshold;
+        this.openDuration = builder.openDuration;
+        this.halfOpenMaxCalls = builder.halfOpenMaxCalls;
+        this.maxConcurrentCalls = builder.maxConcurrentCalls;
+        this.maxWaitDuration = builder.maxWaitDuration;
+        this.failurePredicate = builder.failurePredicate;
+    }
+
+    /**
+     * acquire permission to call the host, must be followed by {@link #release(Permit, int)}
+     * or {@link #cancel(Permit)} when permitted
+     *
+     * @param host target host
+     * @return permit (see {@link Permit#isPermitted()})
+     */
+    public Permit tryAcquire(String host) {
+
+        HostState hostState = hostState(host);
+
+        long epoch = hostState.tryPass();
+        if (epoch < 0) {
+            openRejectedCount.increment();
+            return new Permit(hostState, -1L, HttpUtils.STATUS_CODE_CIRCUIT_OPEN);
+        }
+
+        boolean isAcquired;
+        try {
+            isAcquired = maxWaitDuration > 0
+                    ? hostState.bulkhead.tryAcquire(maxWaitDuration, TimeUnit.MILLISECONDS)
+                    : hostState.bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            isAcquired = false;
+        }
+
+        if (!isAcquired) {
+            // give back the trial slot of half-open state (no outcome)
+            hostState.cancelPass(epoch);
+            bulkheadRejectedCount.increment();
+            return new Permit(hostState, -1L, HttpUtils.STATUS_CODE_BULKHEAD_FULL);
+        }
+
+        return new Permit(hostState, epoch, HttpUtils.STATUS_CODE_UNKNOWN);
+    }
+
+    /**
+     * record outcome of a permitted call and release its bulkhead slot
+     *
+     * @param permit permit of the call
+     * @param statusCode status code of the call
+     */
+    public void release(Permit permit, int statusCode) {
+
+        if (permit.isPermitted() && permit.isReleased.compareAndSet(false, true)) {
+            permit.hostState.bulkhead.release();
+            permit.hostState.record(permit.epoch, !failurePredicate.test(statusCode));
+        }
+    }
+
+    /**
+     * release bulkhead slot of a permitted call without recording outcome (ex: call is aborted)
+     *
+     * @param permit permit of the call
+     */
+    public void cancel(Permit permit) {
+
+        if (permit.isPermitted() && permit.isReleased.compareAndSet(false, true)) {
+            permit.hostState.bulkhead.release();
+            permit.hostState.cancelPass(permit.epoch);
+        }
+    }
+
+    public State getState(String host) {
+        return hostState(host).getState();
+    }
+
+    public int getAvailableConcurrentCalls(String host) {
+        return hostState(host).bulkhead.availablePermits();
+    }
+
+    public long getOpenRejectedCount() {
+        return openRejectedCount.sum();
+    }
+
+    public long getBulkheadRejectedCount() {
+        return bulkheadRejectedCount.sum();
+    }
+
+    private HostState hostState(String host) {
+        String key = host != null ? host : "";
+        return hostStates.computeIfAbsent(key, k -> new HostState(key));
+    }
+
+    /**
+     * permission of one call, tagged with the state it was given in
+     */
+    public static class Permit {
+
+        private final HostState hostState;
+
+        // epoch of host state when permitted, -1 if rejected
+        private final long epoch;
+
+        private final int rejection;
+
+        private final AtomicBoolean isReleased = new AtomicBoolean(false);
+
+        private Permit(HostState hostState, long epoch, int rejection) {
+            this.hostState = hostState;
+            this.epoch = epoch;
+            this.rejection = rejection;
+        }
+
+        public boolean isPermitted() {
+            return epoch >= 0;
+        }
+
+        /**
+         * @return STATUS_CODE_UNKNOWN if permitted, otherwise STATUS_CODE_CIRCUIT_OPEN / STATUS_CODE_BULKHEAD_FULL
+         */
+        public int getRejection() {
+            return rejection;
+        }
+    }
+
+    private class HostState {
+
+        private final String host;
+        private final Semaphore bulkhead = new Semaphore(maxConcurrentCalls);
+
+        private State state = State.CLOSED;
+
+        // +1 on every transition, outcome of a permit from another epoch is stale
+        private long epoch = 0L;
+
+        private int consecutiveFailures = 0;
+        private long openedAt = 0L;
+        private int halfOpenCalls = 0;
+
+        private HostState(String host) {
+            this.host = host;
+        }
+
+        /**
+         * @return epoch of the permit, -1 if rejected
+         */
+        private synchronized long tryPass() {
+
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < openDuration) {
+                    return -1L;
+                }
+                transit(State.HALF_OPEN);
+                halfOpenCalls = 0;
+            }
+
+            if (state == State.HALF_OPEN) {
+                if (halfOpenCalls >= halfOpenMaxCalls) {
+                    return -1L;
+                }
+                halfOpenCalls++;
+            }
+
+            return epoch;
+        }
+
+        private synchronized void cancelPass(long permitEpoch) {
+            if (state == State.HALF_OPEN && permitEpoch == epoch && halfOpenCalls > 0) {
+                halfOpenCalls--;
+            }
+        }
+
+        private synchronized void record(long permitEpoch, boolean isSuccessful) {
+
+            // started before the last transition (never matches in OPEN, only trial calls match in HALF_OPEN)
+            if (permitEpoch != epoch) {
+                return;
+            }
+
+            if (isSuccessful) {
+                if (state == State.HALF_OPEN) {
+                    LOGGER.info("circuit of [" + host + "] is closed");
+                    transit(State.CLOSED);
+                }
+                consecutiveFailures = 0;
+                return;
+            }
+
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                LOGGER.warning("circuit of [" + host + "] is open (" + consecutiveFailures + " consecutive failures)");
+                transit(State.OPEN);
+                openedAt = System.currentTimeMillis();
+            }
+        }
+
+        private void transit(State next) {
+            state = next;
+            epoch++;
+        }
+
+        private synchronized State getState() {
+            return state;
+        }
+    }
+
+    public static class Builder {
+
+        private int failureThreshold = 5;
+
+        // unit: ms
+        private long openDuration = 30000L;
+
+        private int halfOpenMaxCalls = 1;
+
+        // bulkhead (default: same as max connections per route of engine)
+        private int maxConcurrentCalls = 20;
+
+        // unit: ms (default: fail fast when bulkhead is full)
+        private long maxWaitDuration = 0L;
+
+        // failure (default: I/O failure or 5XX)
+        private IntPredicate failurePredicate = statusCode -> statusCode <= HttpUtils.STATUS_CODE_UNKNOWN || statusCode >= 500;
+
+        public Builder() {
+        }
+
+        public Builder setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        public Builder setOpenDuration(long openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        public Builder setHalfOpenMaxCalls(int halfOpenMaxCalls) {
+            this.halfOpenMaxCalls = halfOpenMaxCalls;
+            return this;
+        }
+
+        public Builder setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        public Builder setMaxWaitDuration(long maxWaitDuration) {
+            this.maxWaitDuration = maxWaitDuration;
+            return this;
+        }
+
+        public Builder setFailurePredicate(IntPredicate failurePredicate) {
+            this.failurePredicate = failurePredicate;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+    }
+}
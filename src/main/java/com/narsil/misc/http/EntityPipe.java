@@ -0,0 +1,108 @@
+package com.narsil.misc.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * input stream fed by a body writer running on another thread (ex: entity.writeTo), never held in memory as a whole
+ * <p>
+ * failure of the writer is rethrown to the reader at the end of the stream, so a truncated body is NOT
+ * mistaken for a complete one. closing the stream early stops the writer.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+class EntityPipe extends PipedInputStream {
+
+    private static final Logger LOGGER = Logger.getLogger("EntityPipe");
+
+    // unit: byte
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    private volatile Exception failure;
+    private volatile boolean isClosed = false;
+
+    private EntityPipe() {
+        super(PIPE_SIZE);
+    }
+
+    /**
+     * start writer on executor, and return what it writes
+     *
+     * @param writer body writer
+     * @param executor executor of the writer
+     * @return stream of the body, must be closed by caller
+     * @throws IOException pipe can NOT be created
+     */
+    static InputStream open(BodyWriter writer, Executor executor) throws IOException {
+
+        EntityPipe pipe = new EntityPipe();
+        PipedOutputStream os = new PipedOutputStream(pipe);
+
+        executor.execute(() -> {
+            try {
+                writer.writeTo(os);
+            } catch (IOException | RuntimeException e) {
+                // closed by reader (ex: preview) is NOT a failure
+                if (!pipe.isClosed) {
+                    LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+                }
+                // must be set before close, or the reader may see a normal end of body
+                pipe.failure = e;
+            } finally {
+                try {
+                    os.close();
+                } catch (IOException e) {
+                    LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+                }
+            }
+        });
+
+        return pipe;
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        int b = super.read();
+        if (b < 0) {
+            checkFailure();
+        }
+        return b;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read < 0) {
+            checkFailure();
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        isClosed = true;
+        super.close();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("body can NOT be written", failure);
+        }
+    }
+
+    /**
+     * writer of the body
+     */
+    @FunctionalInterface
+    interface BodyWriter {
+
+        void writeTo(OutputStream outStream) throws IOException;
+    }
+}
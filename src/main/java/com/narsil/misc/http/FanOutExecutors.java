@@ -0,0 +1,95 @@
+package com.narsil.misc.http;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * executor provider for request fan-out
+ * <p>
+ * on Java 21 (or above), every fan-out gets its own virtual-thread-per-task executor;
+ * otherwise, a shared daemon platform thread pool is used.
+ * virtual thread support is detected at runtime, so the library still builds on Java 16.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class FanOutExecutors {
+
+    private static final Logger LOGGER = Logger.getLogger("FanOutExecutors");
+
+    // max platform threads of fallback pool (task is rejected when all are busy, NOT run inline past the deadline of caller)
+    private static final int MAX_PLATFORM_THREADS = 256;
+
+    // Executors.newVirtualThreadPerTaskExecutor() (Java 21+), null if not supported
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR;
+
+    private static final ExecutorService PLATFORM_EXECUTOR;
+
+    static {
+        Method method = null;
+        try {
+            method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            LOGGER.info("virtual thread is NOT supported, fall back to platform thread pool");
+        }
+        NEW_VIRTUAL_THREAD_EXECUTOR = method;
+
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                0, MAX_PLATFORM_THREADS,
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-fan-out-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        PLATFORM_EXECUTOR = executor;
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * acquire executor for one fan-out, must be returned by {@link #release(ExecutorService)}
+     * <p>
+     * NOTE: submit to the platform pool throws RejectedExecutionException when all threads are busy,
+     * callers report it as STATUS_CODE_BULKHEAD_FULL
+     *
+     * @return executor
+     */
+    public static ExecutorService acquire() {
+
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (Exception e) {
+                LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            }
+        }
+
+        return PLATFORM_EXECUTOR;
+    }
+
+    /**
+     * release executor of one fan-out
+     *
+     * @param executor executor from {@link #acquire()}
+     */
+    public static void release(ExecutorService executor) {
+
+        // per fan-out virtual thread executor is discarded, shared platform pool stays alive
+        if (executor != PLATFORM_EXECUTOR) {
+            executor.shutdownNow();
+        }
+    }
+}
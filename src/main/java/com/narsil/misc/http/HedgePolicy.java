@@ -0,0 +1,209 @@
+package com.narsil.misc.http;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * hedging policy for idempotent GET
+ * <p>
+ * when no response arrives within hedge delay, an identical request is sent (optionally to an alternate url),
+ * the first response wins and the other one is cancelled.
+ * hedge delay follows a percentile (default: p95) of recent latency, so only the slow tail is hedged,
+ * and hedges are capped by a ratio of requests, so a slow-down of the whole service does NOT double the load.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class HedgePolicy {
+
+    private final double percentile;
+
+    // unit: ms
+    private final long initialDelay;
+    private final long minDelay;
+    private final long maxDelay;
+
+    private final double maxHedgeRatio;
+
+    // latency samples (ring buffer, unit: ms)
+    private final AtomicLongArray samples;
+    private final int minSamples;
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    // delay is recomputed every RECOMPUTE_INTERVAL samples
+    private static final int RECOMPUTE_INTERVAL = 64;
+    private volatile long currentDelay;
+
+    // statistics
+    private final LongAdder requestCount = new LongAdder();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    public HedgePolicy(Builder builder) {
+
+        this.percentile = builder.percentile;
+        this.initialDelay = builder.initialDelay;
+        this.minDelay = builder.minDelay;
+        this.maxDelay = builder.maxDelay;
+        this.maxHedgeRatio = builder.maxHedgeRatio;
+        this.samples = new AtomicLongArray(builder.windowSize);
+        this.minSamples = Math.min(builder.minSamples, builder.windowSize);
+        this.currentDelay = builder.initialDelay;
+    }
+
+    /**
+     * record an original request
+     */
+    public void onRequest() {
+        requestCount.increment();
+    }
+
+    /**
+     * acquire permission to send a hedge request
+     *
+     * @return true if hedge request is allowed
+     */
+    public boolean tryHedge() {
+
+        // CAS loop, concurrent callers can NOT exceed the budget together
+        long hedges;
+        do {
+            hedges = hedgeCount.get();
+            if (hedges + 1 > requestCount.sum() * maxHedgeRatio) {
+                return false;
+            }
+        } while (!hedgeCount.compareAndSet(hedges, hedges + 1));
+
+        return true;
+    }
+
+    /**
+     * record the winner
+     *
+     * @param isHedgeWon true if hedge request won
+     * @param latency time to the first response (unit: ms)
+     */
+    public void onResponse(boolean isHedgeWon, long latency) {
+
+        if (isHedgeWon) {
+            hedgeWinCount.increment();
+        }
+
+        // each caller gets its own slot
+        long count = sampleCount.getAndIncrement();
+        samples.set((int) (count % samples.length()), latency);
+
+        if ((count + 1) % RECOMPUTE_INTERVAL == 0) {
+            currentDelay = computeDelay();
+        }
+    }
+
+    private long computeDelay() {
+
+        int size = (int) Math.min(sampleCount.get(), samples.length());
+        if (size < minSamples) {
+            return initialDelay;
+        }
+
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+
+        long delay = sorted[(int) Math.min(size - 1, Math.ceil(percentile * size) - 1)];
+        return Math.max(minDelay, Math.min(maxDelay, delay));
+    }
+
+    /**
+     * @return current hedge delay (unit: ms)
+     */
+    public long getDelay() {
+        return currentDelay;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    /**
+     * @return hedge requests / original requests
+     */
+    public double getHedgeRate() {
+        long count = requestCount.sum();
+        return count == 0 ? 0.0 : (double) hedgeCount.get() / count;
+    }
+
+    public static class Builder {
+
+        private double percentile = 0.95;
+
+        // unit: ms (initialDelay is used until enough latency samples are collected)
+        private long initialDelay = 100L;
+        private long minDelay = 10L;
+        private long maxDelay = 5000L;
+
+        // default: hedge at most 10% of requests
+        private double maxHedgeRatio = 0.1;
+
+        private int windowSize = 1024;
+        private int minSamples = 100;
+
+        public Builder() {
+        }
+
+        public Builder setPercentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        public Builder setInitialDelay(long initialDelay) {
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        public Builder setMinDelay(long minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public Builder setMaxDelay(long maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder setMaxHedgeRatio(double maxHedgeRatio) {
+            this.maxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        public Builder setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        public Builder setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        public HedgePolicy build() {
+            return new HedgePolicy(this);
+        }
+    }
+}
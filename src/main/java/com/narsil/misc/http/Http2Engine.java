@@ -0,0 +1,593 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.ZipUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DecompressingEntity;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.HttpHostConnectException;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.X509TrustManager;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * HTTP/2 client engine based on java.net.http.HttpClient
+ * <p>
+ * requests to the same origin are multiplexed over one connection (h2 via ALPN on https, h2c upgrade on http,
+ * falls back to HTTP/1.1 when server does not support it).
+ * takes & returns Apache HttpClient request / response objects, so HttpUtils keeps its handlers, retry,
+ * circuit breaker & abort() unchanged; compressed response body is inflated lazily like {@link HttpEngine}.
+ * engines built by {@link #shared(Builder)} are cached and shared by every caller with the same setting.
+ * <p>
+ * unlike {@link HttpEngine}, hostname is ALWAYS verified against the server certificate (JDK HttpClient can NOT
+ * turn it off per client), so a host whose certificate does NOT match (ex: accessed by IP) fails even if it is
+ * in the allowed hostname list. the client runs on a bounded pool (see {@link Builder#setMaxThreads(int)}).
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class Http2Engine implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger("Http2Engine");
+
+    // shared engines, keyed by connection-level setting
+    private static final Map<List<Object>, Http2Engine> SHARED_ENGINES = new ConcurrentHashMap<>();
+
+    // managed by JDK HttpClient, can NOT be set by caller
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    // idle thread of the pool dies after this period (unit: ms)
+    private static final long KEEP_ALIVE_TIME = 60000L;
+
+    private final HttpClient httpClient;
+
+    // executor of JDK HttpClient
+    private final ThreadPoolExecutor executor;
+
+    // allowed host names (https only)
+    private final List<String> allowedHostnames;
+
+    // unit: byte
+    private final int maxBufferedRequestBody;
+    private final int decompressionBufferSize;
+
+    private Http2Engine(Builder builder) {
+
+        this.allowedHostnames = builder.allowedHostnames;
+        this.maxBufferedRequestBody = builder.maxBufferedRequestBody;
+        this.decompressionBufferSize = builder.decompressionBufferSize;
+
+        // bounded pool, idle worker dies after keep-alive period
+        // queue is NOT bounded, task of JDK HttpClient (ex: reading response) must NOT be rejected
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                builder.maxThreads, builder.maxThreads,
+                KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http2-engine-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+                .version(builder.version)
+                .connectTimeout(Duration.ofMillis(builder.maxConnectTimeout))
+                // TLS sessions are shared with HttpEngine of the same trust manager
+                .sslContext(TlsContextCache.getSslContext(builder.trustManager))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor);
+
+        if (builder.useProxy) {
+            clientBuilder.proxy(ProxySelector.of(new InetSocketAddress(builder.proxyServerAddress, builder.proxyServerPort)));
+        }
+
+        httpClient = clientBuilder.build();
+    }
+
+    /**
+     * get (or create) the shared engine of given setting
+     *
+     * @param builder engine builder
+     * @return shared engine
+     */
+    public static Http2Engine shared(Builder builder) {
+        return SHARED_ENGINES.computeIfAbsent(builder.key(), k -> builder.build());
+    }
+
+    /**
+     * close & forget every shared engine
+     */
+    public static void closeShared() {
+        SHARED_ENGINES.values().forEach(Http2Engine::close);
+        SHARED_ENGINES.clear();
+    }
+
+    /**
+     * execute request (blocking), can be aborted by request.abort()
+     * <p>
+     * exception is mapped to the Apache HttpClient counterpart (connection refused -> HttpHostConnectException,
+     * response timeout -> SocketTimeoutException), connect timeout stays HttpConnectTimeoutException
+     *
+     * @param request request
+     * @return response, must be closed by caller
+     * @throws IOException I/O error, or request is aborted
+     */
+    public CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+        return execute(request, null);
+    }
+
+    /**
+     * execute request (blocking), can be aborted by request.abort()
+     * <p>
+     * exception is mapped to the Apache HttpClient counterpart (connection refused -> HttpHostConnectException,
+     * response timeout -> SocketTimeoutException), connect timeout stays HttpConnectTimeoutException
+     *
+     * @param request request
+     * @param context http context where timing & byte counts are recorded (see {@link RequestMetrics}), nullable
+     * @return response, must be closed by caller
+     * @throws IOException I/O error, or request is aborted
+     */
+    public CloseableHttpResponse execute(HttpRequestBase request, HttpContext context) throws IOException {
+
+        CompletableFuture<CloseableHttpResponse> future = sendAsync(request, context);
+        request.setCancellable(() -> future.cancel(true));
+
+        try {
+            CloseableHttpResponse response = future.get();
+            // abort while body is being read -> close the body stream
+            request.setCancellable(() -> {
+                try {
+                    response.close();
+                } catch (IOException e) {
+                    LOGGER.severe(e.getMessage());
+                }
+                return true;
+            });
+            return response;
+
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("request is interrupted");
+
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("request is aborted");
+
+        } catch (ExecutionException e) {
+            throw translate(e.getCause(), request.getURI());
+        }
+    }
+
+    /**
+     * send request asynchronously
+     *
+     * @param request request
+     * @return future of response (completes exceptionally on I/O error)
+     */
+    public CompletableFuture<CloseableHttpResponse> sendAsync(HttpRequestBase request) {
+        return sendAsync(request, null);
+    }
+
+    /**
+     * send request asynchronously
+     *
+     * @param request request
+     * @param context http context where timing & byte counts are recorded (see {@link RequestMetrics}), nullable
+     * @return future of response (completes exceptionally on I/O error)
+     */
+    public CompletableFuture<CloseableHttpResponse> sendAsync(HttpRequestBase request, HttpContext context) {
+
+        HttpRequest httpRequest;
+        try {
+            httpRequest = toHttpRequest(request, (context != null) ? RequestMetrics.sentCounter(context) : null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<HttpResponse<InputStream>> exchange = httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<CloseableHttpResponse> future = new CompletableFuture<>();
+
+        exchange.whenComplete((httpResponse, e) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+                return;
+            }
+            if (context != null) {
+                RequestMetrics.recordFirstByte(context);
+            }
+            if (!future.complete(toHttpResponse(httpResponse, context))) {
+                // cancelled before response arrived -> nobody will read the body
+                try {
+                    httpResponse.body().close();
+                } catch (IOException ex) {
+                    LOGGER.severe(ex.getMessage());
+                }
+            }
+        });
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+
+        return future;
+    }
+
+    private HttpRequest toHttpRequest(HttpRequestBase request, AtomicLong sentCounter) throws IOException {
+
+        URI uri = request.getURI();
+        checkHostname(uri);
+
+        HttpEntity entity = (request instanceof HttpEntityEnclosingRequest) ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+
+        HttpRequest.BodyPublisher bodyPublisher = toBodyPublisher(entity);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .method(request.getMethod(), (sentCounter != null) ? counting(bodyPublisher, sentCounter) : bodyPublisher);
+
+        // socket timeout of HttpUtils -> time limit of response headers
+        RequestConfig config = request.getConfig();
+        if (config != null && config.getSocketTimeout() > 0) {
+            builder.timeout(Duration.ofMillis(config.getSocketTimeout()));
+        }
+
+        for (Header header : request.getAllHeaders()) {
+            if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase())) {
+                builder.header(header.getName(), header.getValue());
+            }
+        }
+
+        // headers derived from entity (set by RequestContent interceptor in Apache HttpClient)
+        if (entity != null) {
+            if (entity.getContentType() != null && !request.containsHeader("Content-Type")) {
+                builder.header("Content-Type", entity.getContentType().getValue());
+            }
+            if (entity.getContentEncoding() != null && !request.containsHeader("Content-Encoding")) {
+                builder.header("Content-Encoding", entity.getContentEncoding().getValue());
+            }
+        }
+
+        if (!request.containsHeader("Accept-Encoding")) {
+            builder.header("Accept-Encoding", "gzip, deflate");
+        }
+
+        return builder.build();
+    }
+
+    private HttpRequest.BodyPublisher toBodyPublisher(HttpEntity entity) throws IOException {
+
+        if (entity == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+
+        // small entity of known length -> sent with Content-Length
+        long length = entity.getContentLength();
+        if (!entity.isChunked() && length >= 0 && length <= maxBufferedRequestBody) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream((int) length);
+            entity.writeTo(baos);
+            return HttpRequest.BodyPublishers.ofByteArray(baos.toByteArray());
+        }
+
+        // large or streaming entity (ex: StreamingMultipartEntity) -> written through a pipe, never held in memory
+        // writer failure fails the request (NOT sent as a truncated body)
+        // writer has its own thread: pool threads block reading the pipe, a writer queued behind them never runs
+        return HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try {
+                return EntityPipe.open(entity::writeTo, runnable -> {
+                    Thread thread = new Thread(runnable, "http2-body-writer");
+                    thread.setDaemon(true);
+                    thread.start();
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * count body bytes as they are handed over to the connection
+     */
+    private static HttpRequest.BodyPublisher counting(HttpRequest.BodyPublisher publisher, AtomicLong counter) {
+
+        return new HttpRequest.BodyPublisher() {
+
+            @Override
+            public long contentLength() {
+                return publisher.contentLength();
+            }
+
+            @Override
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+
+                publisher.subscribe(new Flow.Subscriber<>() {
+
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        subscriber.onSubscribe(subscription);
+                    }
+
+                    @Override
+                    public void onNext(ByteBuffer item) {
+                        counter.addAndGet(item.remaining());
+                        subscriber.onNext(item);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        subscriber.onError(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        subscriber.onComplete();
+                    }
+                });
+            }
+        };
+    }
+
+    private CloseableHttpResponse toHttpResponse(HttpResponse<InputStream> httpResponse, HttpContext context) {
+
+        ProtocolVersion version = (httpResponse.version() == HttpClient.Version.HTTP_2) ? HTTP_2 : HttpVersion.HTTP_1_1;
+        Http2Response response = new Http2Response(version, httpResponse.statusCode(), httpResponse.body());
+
+        httpResponse.headers().map().forEach((name, values) -> {
+            // pseudo header (ex: ":status")
+            if (!name.startsWith(":")) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(httpResponse.body());
+        entity.setContentLength(httpResponse.headers().firstValueAsLong("Content-Length").orElse(-1L));
+        entity.setContentType(response.getFirstHeader("Content-Type"));
+
+        // bytes on the wire (before inflation)
+        HttpEntity received = (context != null) ? RequestMetrics.countReceived(entity, context) : entity;
+
+        // JDK HttpClient does NOT decode body, inflate lazily while read
+        String encoding = httpResponse.headers().firstValue("Content-Encoding").orElse("").toLowerCase();
+        HttpEntity decoded = received;
+        if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+            decoded = new DecompressingEntity(received, is -> ZipUtils.gzipUncompress(is, decompressionBufferSize));
+        } else if ("deflate".equals(encoding)) {
+            decoded = new DecompressingEntity(received, DeflateInputStream::new);
+        }
+
+        if (decoded != received) {
+            response.removeHeaders("Content-Encoding");
+            response.removeHeaders("Content-Length");
+            response.removeHeaders("Content-MD5");
+        }
+
+        response.setEntity(decoded);
+        return response;
+    }
+
+    /**
+     * JDK HttpClient verifies hostname against certificate only, allowed hostname list is checked before sending
+     */
+    private void checkHostname(URI uri) throws IOException {
+
+        if (allowedHostnames != null && !allowedHostnames.isEmpty()
+                && "https".equalsIgnoreCase(uri.getScheme()) && !allowedHostnames.contains(uri.getHost())) {
+            LOGGER.warning("{" + uri.getHost() + "} is not in allowed hostname list");
+            throw new SSLPeerUnverifiedException("{" + uri.getHost() + "} is not in allowed hostname list");
+        }
+    }
+
+    private static IOException translate(Throwable cause, URI uri) {
+
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause instanceof HttpConnectTimeoutException) {
+            return (HttpConnectTimeoutException) cause;
+        }
+        if (cause instanceof HttpTimeoutException) {
+            SocketTimeoutException e = new SocketTimeoutException(cause.getMessage());
+            e.initCause(cause);
+            return e;
+        }
+        if (cause instanceof ConnectException) {
+            return new HttpHostConnectException((ConnectException) cause, new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme()));
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public HttpClient.Version getVersion() {
+        return httpClient.version();
+    }
+
+    public int getMaxThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public List<String> getAllowedHostnames() {
+        return allowedHostnames;
+    }
+
+    public int getMaxBufferedRequestBody() {
+        return maxBufferedRequestBody;
+    }
+
+    public int getDecompressionBufferSize() {
+        return decompressionBufferSize;
+    }
+
+    @Override
+    public void close() {
+        // JDK HttpClient (Java 16) has no close(), connections are released once the client is unreachable
+        executor.shutdown();
+    }
+
+    /**
+     * response of JDK HttpClient seen as Apache HttpClient response
+     */
+    private static class Http2Response extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private final InputStream body;
+
+        private Http2Response(ProtocolVersion version, int statusCode, InputStream body) {
+            super(new BasicStatusLine(version, statusCode, ""));
+            this.body = body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // unread body -> stream is reset (HTTP/2) or connection is dropped (HTTP/1.1)
+            body.close();
+        }
+    }
+
+    public static class Builder {
+
+        private X509TrustManager trustManager;
+
+        // allowed host names
+        private List<String> allowedHostnames;
+
+        // HTTP_2 (default) or HTTP_1_1
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+
+        // unit: ms
+        private int maxConnectTimeout = 30000;
+
+        // proxy setting
+        private boolean useProxy = false;
+        private String proxyServerAddress = "0.0.0.0";
+        private int proxyServerPort = 8080;
+
+        // request body up to this size is buffered and sent with Content-Length, larger one is streamed (unit: byte)
+        private int maxBufferedRequestBody = 1024 * 1024;
+
+        // inflater buffer of compressed response (unit: byte)
+        private int decompressionBufferSize = 8192;
+
+        // threads of JDK HttpClient (connections are multiplexed, a few threads serve many requests)
+        private int maxThreads = 64;
+
+        public Builder() {
+        }
+
+        public Builder setTrustManager(X509TrustManager trustManager) {
+            this.trustManager = trustManager;
+            return this;
+        }
+
+        public Builder setAllowedHostnames(List<String> allowedHostnames) {
+            // copied, list changed by caller later must NOT change the key of shared engine
+            this.allowedHostnames = allowedHostnames != null ? List.copyOf(allowedHostnames) : null;
+            return this;
+        }
+
+        public Builder setVersion(HttpClient.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        public Builder setMaxConnectTimeout(int maxConnectTimeout) {
+            this.maxConnectTimeout = maxConnectTimeout;
+            return this;
+        }
+
+        public Builder setUseProxy(boolean useProxy) {
+            this.useProxy = useProxy;
+            return this;
+        }
+
+        public Builder setProxyServerAddress(String proxyServerAddress) {
+            this.proxyServerAddress = proxyServerAddress;
+            return this;
+        }
+
+        public Builder setProxyServerPort(int proxyServerPort) {
+            this.proxyServerPort = proxyServerPort;
+            return this;
+        }
+
+        public Builder setMaxBufferedRequestBody(int maxBufferedRequestBody) {
+            this.maxBufferedRequestBody = maxBufferedRequestBody;
+            return this;
+        }
+
+        public Builder setDecompressionBufferSize(int decompressionBufferSize) {
+            this.decompressionBufferSize = decompressionBufferSize;
+            return this;
+        }
+
+        public Builder setMaxThreads(int maxThreads) {
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        private List<Object> key() {
+            return Arrays.asList(trustManager, allowedHostnames, version, maxConnectTimeout,
+                    useProxy, proxyServerAddress, proxyServerPort, maxBufferedRequestBody, decompressionBufferSize,
+                    maxThreads);
+        }
+
+        public Http2Engine build() {
+            return new Http2Engine(this);
+        }
+    }
+}
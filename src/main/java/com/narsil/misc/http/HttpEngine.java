@@ -0,0 +1,418 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.ZipUtils;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.client.entity.InputStreamFactory;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.conn.routing.RouteInfo;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+
+import javax.net.ssl.X509TrustManager;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * long-lived http client engine
+ * <p>
+ * wraps one CloseableHttpClient backed by a PoolingHttpClientConnectionManager,
+ * so TCP connections are reused across requests instead of being set up per call.
+ * TLS material comes from {@link TlsContextCache}, so TLS sessions are also resumed across engines.
+ * engines built by {@link #shared(Builder)} are cached and shared by every caller with the same connection-level setting.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class HttpEngine implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger("HttpEngine");
+
+    // shared engines, keyed by connection-level setting
+    private static final Map<List<Object>, HttpEngine> SHARED_ENGINES = new ConcurrentHashMap<>();
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    // bounded executor for async request
+    private final ThreadPoolExecutor asyncExecutor;
+
+    // allowed host names
+    private final List<String> allowedHostnames;
+
+    // pool setting
+    private final int maxConnTotal;
+    private final int maxConnPerRoute;
+
+    // unit: ms
+    private final int maxIdleTime;
+    private final int defaultKeepAlive;
+    private final int maxRetryTimes;
+
+    // proxy setting
+    private final boolean useProxy;
+    private final String proxyServerProtocol;
+    private final String proxyServerAddress;
+    private final int proxyServerPort;
+
+    // async setting
+    private final int maxAsyncThreads;
+    private final int maxAsyncQueueSize;
+
+    // unit: byte
+    private final int decompressionBufferSize;
+
+    private HttpEngine(Builder builder) {
+
+        this.allowedHostnames = builder.allowedHostnames;
+        this.maxConnTotal = builder.maxConnTotal;
+        this.maxConnPerRoute = builder.maxConnPerRoute;
+        this.maxIdleTime = builder.maxIdleTime;
+        this.defaultKeepAlive = builder.defaultKeepAlive;
+        this.maxRetryTimes = builder.maxRetryTimes;
+        this.useProxy = builder.useProxy;
+        this.proxyServerProtocol = builder.proxyServerProtocol;
+        this.proxyServerAddress = builder.proxyServerAddress;
+        this.proxyServerPort = builder.proxyServerPort;
+        this.maxAsyncThreads = builder.maxAsyncThreads;
+        this.maxAsyncQueueSize = builder.maxAsyncQueueSize;
+        this.decompressionBufferSize = builder.decompressionBufferSize;
+
+        // socket factory is bound to the pool, not to the client
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", TlsContextCache.getSocketFactory(builder.trustManager, allowedHostnames))
+                .build();
+
+        connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setMaxTotal(maxConnTotal);
+        connectionManager.setDefaultMaxPerRoute(maxConnPerRoute);
+        // re-check pooled connection which stays idle for a while (avoid stale connection)
+        connectionManager.setValidateAfterInactivity(builder.validateAfterInactivity);
+
+        httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.DEFAULT)
+                .setKeepAliveStrategy(configKeepAliveStrategy())
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(maxRetryTimes, true))
+                .setRoutePlanner(configHttpRoutePlanner())
+                // capture timing & byte counts for metrics (body counted on the wire, before decompression)
+                .setRequestExecutor(RequestMetrics.requestExecutor())
+                .addInterceptorFirst(RequestMetrics.responseInterceptor())
+                // streaming decompression of gzip / deflate response, with configurable inflater buffer
+                .setContentDecoderRegistry(configContentDecoders())
+                // background thread (daemon) to close expired & idle connection
+                .evictExpiredConnections()
+                .evictIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS)
+                .build();
+
+        asyncExecutor = configAsyncExecutor();
+    }
+
+    /**
+     * get (or create) the shared engine of given setting
+     *
+     * @param builder engine builder
+     * @return shared engine
+     */
+    public static HttpEngine shared(Builder builder) {
+        return SHARED_ENGINES.computeIfAbsent(builder.key(), k -> builder.build());
+    }
+
+    /**
+     * close all shared engines
+     */
+    public static void closeShared() {
+        for (HttpEngine engine : SHARED_ENGINES.values()) {
+            engine.close();
+        }
+        SHARED_ENGINES.clear();
+    }
+
+    private HttpRoutePlanner configHttpRoutePlanner() {
+
+        // 20220902 added: For HTTPS over proxy
+        // instead of DefaultProxyRoutePlanner, use HttpRoutePlanner with customized route logic
+        HttpHost proxy = useProxy ? new HttpHost(proxyServerAddress, proxyServerPort, proxyServerProtocol) : null;
+
+        return (target, request, context) -> {
+
+            boolean isSecure = "https".equalsIgnoreCase(target.getSchemeName());
+            RouteInfo.TunnelType tunnelType = useProxy ? RouteInfo.TunnelType.TUNNELLED : RouteInfo.TunnelType.PLAIN;
+            RouteInfo.LayerType layerType = isSecure ? RouteInfo.LayerType.LAYERED : RouteInfo.LayerType.PLAIN;
+
+            return new HttpRoute(target, null, proxy, isSecure, tunnelType, layerType);
+        };
+    }
+
+    private ThreadPoolExecutor configAsyncExecutor() {
+
+        AtomicInteger count = new AtomicInteger();
+
+        // bounded pool & queue, excess task is rejected instead of piling up threads
+        // idle worker dies after keep-alive period, so sync-only usage costs no thread
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxAsyncThreads, maxAsyncThreads,
+                maxIdleTime, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxAsyncQueueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-engine-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private Map<String, InputStreamFactory> configContentDecoders() {
+
+        // decoded lazily when body is read, never buffered as a whole
+        InputStreamFactory gzip = is -> ZipUtils.gzipUncompress(is, decompressionBufferSize);
+
+        // insertion order is the order of Accept-Encoding
+        Map<String, InputStreamFactory> decoders = new LinkedHashMap<>();
+        decoders.put("gzip", gzip);
+        decoders.put("x-gzip", gzip);
+        decoders.put("deflate", DeflateInputStream::new);
+        return decoders;
+    }
+
+    private ConnectionKeepAliveStrategy configKeepAliveStrategy() {
+
+        // honor "Keep-Alive: timeout=N" from server, otherwise keep connection for default period
+        return (response, context) -> {
+
+            BasicHeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000L;
+                    } catch (NumberFormatException e) {
+                        LOGGER.warning("invalid keep-alive timeout: " + element.getValue());
+                    }
+                }
+            }
+
+            return defaultKeepAlive;
+        };
+    }
+
+    /**
+     * get pool statistics (leased, pending, available, max)
+     *
+     * @return pool statistics
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public ExecutorService getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    public List<String> getAllowedHostnames() {
+        return allowedHostnames;
+    }
+
+    public int getMaxConnTotal() {
+        return maxConnTotal;
+    }
+
+    public int getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public int getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public int getDefaultKeepAlive() {
+        return defaultKeepAlive;
+    }
+
+    public int getMaxRetryTimes() {
+        return maxRetryTimes;
+    }
+
+    public boolean isUseProxy() {
+        return useProxy;
+    }
+
+    public int getMaxAsyncThreads() {
+        return maxAsyncThreads;
+    }
+
+    public int getMaxAsyncQueueSize() {
+        return maxAsyncQueueSize;
+    }
+
+    public int getDecompressionBufferSize() {
+        return decompressionBufferSize;
+    }
+
+    @Override
+    public void close() {
+
+        asyncExecutor.shutdown();
+
+        try {
+            // also shuts down connection manager & eviction thread
+            httpClient.close();
+        } catch (IOException e) {
+            LOGGER.severe(e.getMessage());
+        }
+    }
+
+    public static class Builder {
+
+        private X509TrustManager trustManager;
+
+        // allowed host names
+        private List<String> allowedHostnames;
+
+        // pool setting
+        private int maxConnTotal = 200;
+        private int maxConnPerRoute = 20;
+
+        // unit: ms
+        private int maxIdleTime = 30000;
+        private int defaultKeepAlive = 30000;
+        private int validateAfterInactivity = 2000;
+        private int maxRetryTimes = 0;
+
+        // proxy setting
+        private boolean useProxy = false;
+        private String proxyServerProtocol = "http";
+        private String proxyServerAddress = "0.0.0.0";
+        private int proxyServerPort = 8080;
+
+        // async setting
+        private int maxAsyncThreads = 64;
+        private int maxAsyncQueueSize = 10000;
+
+        // inflater buffer of compressed response (unit: byte)
+        private int decompressionBufferSize = 8192;
+
+        public Builder() {
+        }
+
+        public Builder setTrustManager(X509TrustManager trustManager) {
+            this.trustManager = trustManager;
+            return this;
+        }
+
+        public Builder setAllowedHostnames(List<String> allowedHostnames) {
+            // copied, list changed by caller later must NOT change the key of shared engine
+            this.allowedHostnames = allowedHostnames != null ? List.copyOf(allowedHostnames) : null;
+            return this;
+        }
+
+        public Builder setMaxConnTotal(int maxConnTotal) {
+            this.maxConnTotal = maxConnTotal;
+            return this;
+        }
+
+        public Builder setMaxConnPerRoute(int maxConnPerRoute) {
+            this.maxConnPerRoute = maxConnPerRoute;
+            return this;
+        }
+
+        public Builder setMaxIdleTime(int maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        public Builder setDefaultKeepAlive(int defaultKeepAlive) {
+            this.defaultKeepAlive = defaultKeepAlive;
+            return this;
+        }
+
+        public Builder setValidateAfterInactivity(int validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        public Builder setMaxRetryTimes(int maxRetryTimes) {
+            this.maxRetryTimes = maxRetryTimes;
+            return this;
+        }
+
+        public Builder setUseProxy(boolean useProxy) {
+            this.useProxy = useProxy;
+            return this;
+        }
+
+        public Builder setProxyServerProtocol(String proxyServerProtocol) {
+            this.proxyServerProtocol = proxyServerProtocol;
+            return this;
+        }
+
+        public Builder setProxyServerAddress(String proxyServerAddress) {
+            this.proxyServerAddress = proxyServerAddress;
+            return this;
+        }
+
+        public Builder setProxyServerPort(int proxyServerPort) {
+            this.proxyServerPort = proxyServerPort;
+            return this;
+        }
+
+        public Builder setMaxAsyncThreads(int maxAsyncThreads) {
+            this.maxAsyncThreads = maxAsyncThreads;
+            return this;
+        }
+
+        public Builder setMaxAsyncQueueSize(int maxAsyncQueueSize) {
+            this.maxAsyncQueueSize = maxAsyncQueueSize;
+            return this;
+        }
+
+        public Builder setDecompressionBufferSize(int decompressionBufferSize) {
+            this.decompressionBufferSize = decompressionBufferSize;
+            return this;
+        }
+
+        private List<Object> key() {
+            return Arrays.asList(trustManager, allowedHostnames,
+                    maxConnTotal, maxConnPerRoute, maxIdleTime, defaultKeepAlive, validateAfterInactivity, maxRetryTimes,
+                    useProxy, proxyServerProtocol, proxyServerAddress, proxyServerPort,
+                    maxAsyncThreads, maxAsyncQueueSize, decompressionBufferSize);
+        }
+
+        public HttpEngine build() {
+            return new HttpEngine(this);
+        }
+    }
+}
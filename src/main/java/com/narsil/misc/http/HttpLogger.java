@@ -0,0 +1,320 @@
+package com.narsil.misc.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.entity.ContentType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * request / response logger which can stay on under load
+ * <p>
+ * - body preview is capped, and request entity is never consumed (non-repeatable entity is NOT read at all)<br>
+ * - only text body is previewed, multipart & binary body is logged as a summary<br>
+ * - only a sample of exchanges is logged<br>
+ * - messages are formatted & written by a background thread through a bounded queue, dropped on overflow
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class HttpLogger implements Closeable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Logger logger;
+    private final Level level;
+    private final int maxBodyPreview;
+    private final double samplingRate;
+
+    private final BlockingQueue<Record> queue;
+    private final Thread worker;
+    private volatile boolean isRunning = true;
+
+    // statistics
+    private final LongAdder loggedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    public HttpLogger(Builder builder) {
+
+        this.logger = Logger.getLogger(builder.loggerName);
+        this.level = builder.level;
+        this.maxBodyPreview = builder.maxBodyPreview;
+        this.samplingRate = builder.samplingRate;
+        this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+
+        worker = new Thread(this::drain, "http-logger-" + THREAD_COUNT.incrementAndGet());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * decide whether an exchange is logged (call once per exchange, then log both request & response)
+     *
+     * @return true if sampled
+     */
+    public boolean sample() {
+        return logger.isLoggable(level)
+                && (samplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < samplingRate);
+    }
+
+    /**
+     * log request (body preview is taken on the caller thread, formatting is NOT)
+     *
+     * @param symbol direction symbol (direct / proxy)
+     * @param request request
+     */
+    public void logRequest(String symbol, HttpRequest request) {
+
+        String body = null;
+        if (request instanceof HttpEntityEnclosingRequest) {
+            body = preview(((HttpEntityEnclosingRequest) request).getEntity(), maxBodyPreview);
+        }
+
+        offer(new Record("HTTP REQ ", symbol, request.getRequestLine().toString(), body));
+    }
+
+    /**
+     * log response
+     *
+     * @param symbol direction symbol (direct / proxy)
+     * @param statusCode status code
+     * @param content response data (converted to string & truncated on the logger thread)
+     */
+    public void logResponse(String symbol, int statusCode, Object content) {
+
+        // do NOT keep a large body alive in the queue
+        if (content instanceof CharSequence && ((CharSequence) content).length() > maxBodyPreview) {
+            CharSequence text = (CharSequence) content;
+            content = text.subSequence(0, maxBodyPreview) + "... (" + text.length() + " chars)";
+        }
+
+        offer(new Record("HTTP RESP", symbol, "(" + statusCode + ")", content));
+    }
+
+    /**
+     * log a plain message (ex: retry)
+     *
+     * @param message message
+     */
+    public void log(String message) {
+        offer(new Record(null, null, message, null));
+    }
+
+    private void offer(Record record) {
+        if (!isRunning || !queue.offer(record)) {
+            droppedCount.increment();
+        }
+    }
+
+    private void drain() {
+
+        while (isRunning || !queue.isEmpty()) {
+            try {
+                Record record = queue.poll(100L, TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    logger.log(level, record.format(maxBodyPreview));
+                    loggedCount.increment();
+                }
+            } catch (InterruptedException e) {
+                // closing, keep draining what is queued
+                isRunning = false;
+            } catch (RuntimeException e) {
+                // never let a bad record stop the logger
+                droppedCount.increment();
+            }
+        }
+    }
+
+    /**
+     * preview of request entity without consuming it
+     * <p>
+     * only text body (ex: text/*, json, xml, form) is read, others are summarized (ex: multipart, octet-stream)
+     *
+     * @param entity entity
+     * @param maxLength max preview length (unit: byte)
+     * @return preview
+     */
+    public static String preview(HttpEntity entity, int maxLength) {
+
+        if (entity == null) {
+            return null;
+        }
+
+        String summary = "[" + entity.getClass().getSimpleName()
+                + ", " + (entity.getContentType() != null ? entity.getContentType().getValue() : "unknown type")
+                + (entity.getContentEncoding() != null ? ", " + entity.getContentEncoding().getValue() : "")
+                + ", " + (entity.getContentLength() >= 0 ? entity.getContentLength() + " bytes" : "chunked") + "]";
+
+        // stream can be read only once -> never touched, encoded (ex: gzip) body is not readable text
+        if (!entity.isRepeatable() || entity.getContentEncoding() != null) {
+            return summary;
+        }
+
+        // multipart (ex: StreamingMultipartEntity) & binary body is NOT read at all
+        ContentType contentType = textContentType(entity);
+        if (contentType == null) {
+            return summary;
+        }
+
+        try (InputStream is = entity.getContent()) {
+
+            byte[] bytes = is.readNBytes(maxLength + 1);
+            Charset charset = StandardCharsets.UTF_8;
+            if (contentType.getCharset() != null) {
+                charset = contentType.getCharset();
+            }
+
+            String text = new String(bytes, 0, Math.min(bytes.length, maxLength), charset);
+            return bytes.length > maxLength ? text + "... " + summary : text;
+
+        } catch (IOException e) {
+            return summary;
+        }
+    }
+
+    /**
+     * content type of entity if it is text
+     *
+     * @param entity entity
+     * @return content type, null if it is NOT text (or unknown)
+     */
+    private static ContentType textContentType(HttpEntity entity) {
+
+        ContentType contentType;
+        try {
+            contentType = ContentType.get(entity);
+        } catch (RuntimeException e) {
+            // malformed content type, or unsupported charset
+            return null;
+        }
+
+        if (contentType == null) {
+            return null;
+        }
+
+        String mimeType = contentType.getMimeType().toLowerCase(Locale.ROOT);
+        boolean isText = mimeType.startsWith("text/")
+                || mimeType.endsWith("json")
+                || mimeType.endsWith("xml")
+                || mimeType.endsWith("javascript")
+                || mimeType.equals(ContentType.APPLICATION_FORM_URLENCODED.getMimeType());
+
+        return isText ? contentType : null;
+    }
+
+    public long getLoggedCount() {
+        return loggedCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * stop accepting records, and flush queued ones
+     */
+    @Override
+    public void close() {
+
+        isRunning = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Record {
+
+        private final String prefix;
+        private final String symbol;
+        private final String line;
+        private final Object body;
+
+        private Record(String prefix, String symbol, String line, Object body) {
+            this.prefix = prefix;
+            this.symbol = symbol;
+            this.line = line;
+            this.body = body;
+        }
+
+        private String format(int maxBodyPreview) {
+
+            if (prefix == null) {
+                return line;
+            }
+
+            // string body is already capped by logResponse()
+            String text = String.valueOf(body);
+            if (!(body instanceof CharSequence) && text.length() > maxBodyPreview) {
+                text = text.substring(0, maxBodyPreview) + "... (" + text.length() + " chars)";
+            }
+            return "\n" + prefix + symbol + line + "\n" + prefix + symbol + text;
+        }
+    }
+
+    public static class Builder {
+
+        private String loggerName = "HttpUtils";
+        private Level level = Level.INFO;
+
+        // unit: byte (request) / char (response)
+        private int maxBodyPreview = 1024;
+
+        // 0.0 ~ 1.0 (default: every exchange)
+        private double samplingRate = 1.0;
+
+        private int queueCapacity = 1024;
+
+        public Builder() {
+        }
+
+        public Builder setLoggerName(String loggerName) {
+            this.loggerName = loggerName;
+            return this;
+        }
+
+        public Builder setLevel(Level level) {
+            this.level = level;
+            return this;
+        }
+
+        public Builder setMaxBodyPreview(int maxBodyPreview) {
+            this.maxBodyPreview = maxBodyPreview;
+            return this;
+        }
+
+        public Builder setSamplingRate(double samplingRate) {
+            this.samplingRate = samplingRate;
+            return this;
+        }
+
+        public Builder setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public HttpLogger build() {
+            return new HttpLogger(this);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.narsil.misc.http;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * low-overhead request metrics per host & status class
+ * <p>
+ * request count, in-flight count, bytes sent / received and connect / TTFB / total latency histograms.
+ * every update is a lock-free counter increment, so it can stay on in production.
+ * metrics can be read by getters, or by JMX after {@link #registerMBean(String)}.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class HttpMetrics implements HttpMetricsListener, HttpMetricsMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger("HttpMetrics");
+
+    private static final String OBJECT_NAME_PREFIX = "com.narsil.misc.http:type=HttpMetrics,name=";
+
+    // key: "host STATUS_CLASS"
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    // key: host
+    private final Map<String, AtomicLong> inFlight = new ConcurrentHashMap<>();
+
+    private ObjectName objectName;
+
+    public HttpMetrics() {
+    }
+
+    @Override
+    public void onRequestStarted(String host) {
+        inFlight.computeIfAbsent(hostKey(host), k -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    public void onRequestCompleted(RequestMetrics metrics) {
+
+        AtomicLong count = inFlight.get(hostKey(metrics.getHost()));
+        if (count != null) {
+            count.decrementAndGet();
+        }
+
+        stats.computeIfAbsent(key(metrics.getHost(), statusClass(metrics.getStatusCode())), k -> new Stats())
+                .record(metrics);
+    }
+
+    /**
+     * status class of status code
+     *
+     * @param statusCode status code
+     * @return 1XX ~ 5XX, or ERR for connection failure (status code <= 0)
+     */
+    public static String statusClass(int statusCode) {
+        return statusCode <= 0 ? "ERR" : (statusCode / 100) + "XX";
+    }
+
+    private static String key(String host, String statusClass) {
+        return hostKey(host) + " " + statusClass;
+    }
+
+    // url without host (ex: relative url) -> ""
+    private static String hostKey(String host) {
+        return host != null ? host : "";
+    }
+
+    /**
+     * get statistics of host & status class
+     *
+     * @param host host
+     * @param statusClass status class (ex: 2XX)
+     * @return statistics, null if no request
+     */
+    public Stats getStats(String host, String statusClass) {
+        return stats.get(key(host, statusClass));
+    }
+
+    public long getInFlightCount(String host) {
+        AtomicLong count = inFlight.get(hostKey(host));
+        return count != null ? count.get() : 0L;
+    }
+
+    /**
+     * register as JMX MBean (platform MBean server)
+     *
+     * @param name name of the MBean (ex: client name)
+     * @return object name, null if failed
+     */
+    public synchronized ObjectName registerMBean(String name) {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+            return objectName;
+        } catch (Exception e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * unregister from JMX
+     */
+    public synchronized void unregisterMBean() {
+
+        if (objectName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return stats.values().stream().mapToLong(s -> s.requestCount.sum()).sum();
+    }
+
+    @Override
+    public long getInFlightCount() {
+        return inFlight.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return stats.values().stream().mapToLong(s -> s.bytesSent.sum()).sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return stats.values().stream().mapToLong(s -> s.bytesReceived.sum()).sum();
+    }
+
+    @Override
+    public Map<String, Long> getRequestCounts() {
+        return collect(s -> s.requestCount.sum());
+    }
+
+    @Override
+    public Map<String, Long> getInFlightCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        inFlight.forEach((host, count) -> result.put(host, count.get()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getBytesSentCounts() {
+        return collect(s -> s.bytesSent.sum());
+    }
+
+    @Override
+    public Map<String, Long> getBytesReceivedCounts() {
+        return collect(s -> s.bytesReceived.sum());
+    }
+
+    @Override
+    public Map<String, Long> getConnectTimeP99() {
+        return collect(s -> s.connectTime.percentile(0.99));
+    }
+
+    @Override
+    public Map<String, Long> getTimeToFirstByteP99() {
+        return collect(s -> s.timeToFirstByte.percentile(0.99));
+    }
+
+    @Override
+    public Map<String, Long> getTotalTimeP50() {
+        return collect(s -> s.totalTime.percentile(0.50));
+    }
+
+    @Override
+    public Map<String, Long> getTotalTimeP99() {
+        return collect(s -> s.totalTime.percentile(0.99));
+    }
+
+    @Override
+    public void reset() {
+        // in-flight count is NOT reset, requests in flight will still complete
+        stats.clear();
+    }
+
+    private Map<String, Long> collect(Function<Stats, Long> mapper) {
+        Map<String, Long> result = new TreeMap<>();
+        stats.forEach((key, value) -> result.put(key, mapper.apply(value)));
+        return result;
+    }
+
+    /**
+     * statistics of one host & status class
+     */
+    public static class Stats {
+
+        private final LongAdder requestCount = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private final LatencyHistogram connectTime = new LatencyHistogram();
+        private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+        private final LatencyHistogram totalTime = new LatencyHistogram();
+
+        private void record(RequestMetrics metrics) {
+            requestCount.increment();
+            bytesSent.add(metrics.getBytesSent());
+            bytesReceived.add(metrics.getBytesReceived());
+            connectTime.record(metrics.getConnectTime());
+            timeToFirstByte.record(metrics.getTimeToFirstByte());
+            totalTime.record(metrics.getTotalTime());
+        }
+
+        public long getRequestCount() {
+            return requestCount.sum();
+        }
+
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        public LatencyHistogram getConnectTime() {
+            return connectTime;
+        }
+
+        public LatencyHistogram getTimeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        public LatencyHistogram getTotalTime() {
+            return totalTime;
+        }
+    }
+
+    /**
+     * lock-free latency histogram with power-of-2 buckets (unit: µs)
+     * <p>
+     * bucket 0: 0 µs, bucket i: [2^(i-1), 2^i) µs, so percentile is accurate within a factor of 2
+     */
+    public static class LatencyHistogram {
+
+        private static final int BUCKET_COUNT = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        /**
+         * record latency
+         *
+         * @param nanos latency (unit: ns), ignored if negative
+         */
+        public void record(long nanos) {
+
+            if (nanos < 0) {
+                return;
+            }
+
+            long micros = nanos / 1000L;
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(micros));
+            count.increment();
+            sum.add(micros);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return mean latency (unit: µs)
+         */
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * @param percentile percentile (ex: 0.99)
+         * @return upper bound of the bucket holding the percentile (unit: µs), 0 if empty
+         */
+        public long percentile(double percentile) {
+
+            long n = count.sum();
+            if (n == 0) {
+                return 0L;
+            }
+
+            long rank = (long) Math.ceil(percentile * n);
+            long seen = 0L;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return i == 0 ? 0L : (1L << i) - 1L;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.narsil.misc.http;
+
+/**
+ * listener of request metrics
+ * <p>
+ * called on the request thread, implementation must be cheap & thread-safe (ex: {@link HttpMetrics})
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public interface HttpMetricsListener {
+
+    /**
+     * request is about to be sent
+     *
+     * @param host target host
+     */
+    default void onRequestStarted(String host) {
+    }
+
+    /**
+     * request is completed (successfully or not)
+     *
+     * @param metrics metrics of the request
+     */
+    void onRequestCompleted(RequestMetrics metrics);
+}
@@ -0,0 +1,41 @@
+package com.narsil.misc.http;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link HttpMetrics}
+ * <p>
+ * key of per-host map: "host" (in-flight) or "host STATUS_CLASS" (ex: "api.example.com 2XX"), latency unit: µs
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public interface HttpMetricsMXBean {
+
+    long getRequestCount();
+
+    long getInFlightCount();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    Map<String, Long> getRequestCounts();
+
+    Map<String, Long> getInFlightCounts();
+
+    Map<String, Long> getBytesSentCounts();
+
+    Map<String, Long> getBytesReceivedCounts();
+
+    Map<String, Long> getConnectTimeP99();
+
+    Map<String, Long> getTimeToFirstByteP99();
+
+    Map<String, Long> getTotalTimeP50();
+
+    Map<String, Long> getTotalTimeP99();
+
+    void reset();
+}
@@ -0,0 +1,267 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * client-side load balancer across replicas (base urls)
+ * <p>
+ * supports round-robin, least-outstanding-requests and power-of-two-choices selection.
+ * an endpoint is ejected for a while after consecutive connection failures (refused / timeout);
+ * when every endpoint is ejected, all of them are used again (fail open).
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class LoadBalancer {
+
+    private static final Logger LOGGER = Logger.getLogger("LoadBalancer");
+
+    public enum Strategy {
+        ROUND_ROBIN, LEAST_OUTSTANDING, POWER_OF_TWO_CHOICES
+    }
+
+    private final List<Endpoint> endpoints;
+    private final Strategy strategy;
+
+    private final int ejectionThreshold;
+
+    // unit: ms
+    private final long ejectionDuration;
+
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    public LoadBalancer(Builder builder) {
+
+        List<Endpoint> endpoints = new ArrayList<>(builder.baseUrls.size());
+        for (String baseUrl : builder.baseUrls) {
+            endpoints.add(new Endpoint(baseUrl));
+        }
+
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("no endpoint");
+        }
+
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.strategy = builder.strategy;
+        this.ejectionThreshold = builder.ejectionThreshold;
+        this.ejectionDuration = builder.ejectionDuration;
+    }
+
+    /**
+     * select an endpoint for one call, must be followed by {@link #release(Endpoint, int)} or {@link #cancel(Endpoint)}
+     *
+     * @return endpoint
+     */
+    public Endpoint select() {
+
+        long now = System.currentTimeMillis();
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+
+        // every endpoint is ejected -> fail open
+        if (candidates.isEmpty()) {
+            candidates = endpoints;
+        }
+
+        Endpoint selected = switch (strategy) {
+            case ROUND_ROBIN -> candidates.get(Math.floorMod(nextIndex.getAndIncrement(), candidates.size()));
+            case LEAST_OUTSTANDING -> selectLeastOutstanding(candidates);
+            case POWER_OF_TWO_CHOICES -> selectPowerOfTwoChoices(candidates);
+        };
+
+        selected.outstanding.incrementAndGet();
+        selected.requestCount.increment();
+        return selected;
+    }
+
+    private Endpoint selectLeastOutstanding(List<Endpoint> candidates) {
+
+        // rotate start index, so ties are spread
+        int start = Math.floorMod(nextIndex.getAndIncrement(), candidates.size());
+        Endpoint selected = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Endpoint endpoint = candidates.get((start + i) % candidates.size());
+            if (selected == null || endpoint.outstanding.get() < selected.outstanding.get()) {
+                selected = endpoint;
+            }
+        }
+        return selected;
+    }
+
+    private Endpoint selectPowerOfTwoChoices(List<Endpoint> candidates) {
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Endpoint a = candidates.get(first);
+        Endpoint b = candidates.get(second);
+        return a.outstanding.get() <= b.outstanding.get() ? a : b;
+    }
+
+    /**
+     * record outcome of a call
+     *
+     * @param endpoint selected endpoint
+     * @param statusCode status code of the call
+     */
+    public void release(Endpoint endpoint, int statusCode) {
+
+        endpoint.outstanding.decrementAndGet();
+
+        boolean isConnectionFailure = statusCode == HttpUtils.STATUS_CODE_CONNECTION_REFUSED
+                || statusCode == HttpUtils.STATUS_CODE_CONNECTION_TIMEOUT;
+        endpoint.record(isConnectionFailure);
+    }
+
+    /**
+     * release a call without recording outcome (ex: call is aborted)
+     *
+     * @param endpoint selected endpoint
+     */
+    public void cancel(Endpoint endpoint) {
+        endpoint.outstanding.decrementAndGet();
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public class Endpoint {
+
+        private final String baseUrl;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final LongAdder requestCount = new LongAdder();
+        private final LongAdder ejectionCount = new LongAdder();
+
+        private int consecutiveFailures = 0;
+        private volatile long ejectedUntil = 0L;
+
+        private Endpoint(String baseUrl) {
+            // "http://host:port/" + "/path" -> "http://host:port/path"
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        }
+
+        /**
+         * resolve url of this endpoint
+         *
+         * @param path relative url (ex: /api/items?page=1)
+         * @return absolute url
+         */
+        public String resolve(String path) {
+
+            if (path == null || path.isEmpty()) {
+                return baseUrl;
+            }
+            return path.startsWith("/") ? baseUrl + path : baseUrl + "/" + path;
+        }
+
+        private boolean isEjected(long now) {
+            return now < ejectedUntil;
+        }
+
+        private synchronized void record(boolean isConnectionFailure) {
+
+            if (!isConnectionFailure) {
+                consecutiveFailures = 0;
+                return;
+            }
+
+            if (++consecutiveFailures >= ejectionThreshold) {
+                LOGGER.warning("endpoint [" + baseUrl + "] is ejected for " + ejectionDuration + " ms ("
+                        + consecutiveFailures + " consecutive connection failures)");
+                consecutiveFailures = 0;
+                ejectedUntil = System.currentTimeMillis() + ejectionDuration;
+                ejectionCount.increment();
+            }
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public boolean isEjected() {
+            return isEjected(System.currentTimeMillis());
+        }
+
+        public long getRequestCount() {
+            return requestCount.sum();
+        }
+
+        public long getEjectionCount() {
+            return ejectionCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return baseUrl;
+        }
+    }
+
+    public static class Builder {
+
+        private List<String> baseUrls = new ArrayList<>();
+        private Strategy strategy = Strategy.ROUND_ROBIN;
+
+        private int ejectionThreshold = 3;
+
+        // unit: ms
+        private long ejectionDuration = 30000L;
+
+        public Builder() {
+        }
+
+        public Builder setBaseUrls(List<String> baseUrls) {
+            this.baseUrls = baseUrls;
+            return this;
+        }
+
+        public Builder setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        public Builder setEjectionThreshold(int ejectionThreshold) {
+            this.ejectionThreshold = ejectionThreshold;
+            return this;
+        }
+
+        public Builder setEjectionDuration(long ejectionDuration) {
+            this.ejectionDuration = ejectionDuration;
+            return this;
+        }
+
+        public LoadBalancer build() {
+            return new LoadBalancer(this);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.narsil.misc.http;
+
+/**
+ * transfer progress callback (upload / download)
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * called after each chunk, possibly from several threads at once (ex: parallel download)
+     *
+     * @param transferred bytes transferred so far
+     * @param total total bytes (-1 if unknown)
+     */
+    void onProgress(long transferred, long total);
+}
@@ -0,0 +1,589 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.JsonUtils;
+import com.narsil.misc.Tuple;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.HttpHostConnectException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * parallel ranged download with resume
+ * <p>
+ * probes range support with "Range: bytes=0-0", preallocates the target file, then fetches fixed-size ranges
+ * in parallel and writes them by positional FileChannel writes (no heap buffering of the body).
+ * completed ranges are recorded in a checkpoint file next to the target ("target.checkpoint"),
+ * so an interrupted download resumes from where it stopped; the checkpoint is removed when the download completes.
+ * server without range support falls back to a single streamed GET.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class RangedDownloader {
+
+    private static final Logger LOGGER = Logger.getLogger("RangedDownloader");
+
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    private final String url;
+    private final Map<String, String> header;
+    private final Path target;
+    private final Path checkpointPath;
+    private final HttpEngine engine;
+    private final int parallelism;
+
+    // unit: byte
+    private final long rangeSize;
+    private final int bufferSize;
+
+    // unit: ms
+    private final int maxConnectTimeout;
+
+    private final ProgressListener progressListener;
+
+    // statistics
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private volatile long resumedBytes = 0L;
+
+    public RangedDownloader(Builder builder) {
+
+        this.url = builder.url;
+        this.header = builder.header;
+        this.target = builder.target;
+        this.checkpointPath = builder.target.resolveSibling(builder.target.getFileName() + CHECKPOINT_SUFFIX);
+        this.engine = builder.engine != null ? builder.engine : HttpEngine.shared(new HttpEngine.Builder());
+        this.parallelism = builder.parallelism;
+        this.rangeSize = builder.rangeSize;
+        this.bufferSize = builder.bufferSize;
+        this.maxConnectTimeout = builder.maxConnectTimeout;
+        this.progressListener = builder.progressListener;
+    }
+
+    /**
+     * download (or resume) the file
+     *
+     * @return status code (200 when the file is complete, otherwise the first failure) & target path
+     */
+    public Tuple.Pair<Integer, Path> download() {
+
+        transferredBytes.set(0L);
+        resumedBytes = 0L;
+
+        HttpGet probe = createRequest();
+        probe.setHeader("Range", "bytes=0-0");
+
+        long length;
+        String validator;
+
+        try (CloseableHttpResponse response = engine.getHttpClient().execute(probe)) {
+
+            int status = response.getStatusLine().getStatusCode();
+            length = parseLength(response.getFirstHeader("Content-Range"));
+
+            // no range support -> the probe is the whole download
+            if (status == HttpStatus.SC_OK) {
+                LOGGER.info("range is NOT supported by [" + url + "], download in single stream");
+                Files.deleteIfExists(checkpointPath);
+                return Tuple.collect(writeWhole(response.getEntity()), target);
+            }
+
+            if (status != HttpStatus.SC_PARTIAL_CONTENT) {
+                return Tuple.collect(status, target);
+            }
+
+            validator = validatorOf(response);
+
+        } catch (Exception e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            return Tuple.collect(statusOf(e), target);
+        }
+
+        // unknown total (ex: "bytes 0-0/*") -> the probe body is only 1 byte, fetch the whole file without Range
+        if (length < 0) {
+            LOGGER.info("total length of [" + url + "] is unknown, download in single stream");
+            return Tuple.collect(downloadWhole(), target);
+        }
+
+        int rangeCount = (int) ((length + rangeSize - 1) / rangeSize);
+        Checkpoint checkpoint = loadCheckpoint(length, validator, rangeCount);
+
+        try (FileChannel fileChannel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+            // preallocate
+            if (fileChannel.size() != length) {
+                try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+                    file.setLength(length);
+                }
+            }
+
+            Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+            long resumed = 0L;
+            for (int i = 0; i < rangeCount; i++) {
+                if (checkpoint.completed[i]) {
+                    resumed += rangeEnd(i, length) - rangeStart(i) + 1;
+                } else {
+                    pending.add(i);
+                }
+            }
+            resumedBytes = resumed;
+            transferredBytes.set(resumed);
+
+            if (resumed > 0) {
+                LOGGER.info("resume [" + url + "] from " + resumed + " / " + length + " bytes");
+            }
+
+            int status = fetchRanges(fileChannel, pending, checkpoint, length);
+            if (status != HttpStatus.SC_OK) {
+                return Tuple.collect(status, target);
+            }
+
+        } catch (IOException e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            return Tuple.collect(HttpUtils.STATUS_CODE_UNKNOWN, target);
+        }
+
+        try {
+            Files.deleteIfExists(checkpointPath);
+        } catch (IOException e) {
+            LOGGER.severe(e.getMessage());
+        }
+
+        return Tuple.collect(HttpStatus.SC_OK, target);
+    }
+
+    /**
+     * fetch pending ranges by parallel workers
+     *
+     * @return 200 if all ranges are done, otherwise the first failure
+     */
+    private int fetchRanges(FileChannel fileChannel, Queue<Integer> pending, Checkpoint checkpoint, long length) {
+
+        AtomicInteger failure = new AtomicInteger(HttpStatus.SC_OK);
+        List<Future<?>> futures = new ArrayList<>(parallelism);
+
+        ExecutorService executor = FanOutExecutors.acquire();
+        try {
+            Runnable worker = () -> {
+                Integer index;
+                // stop taking new ranges once any worker failed
+                while (failure.get() == HttpStatus.SC_OK && (index = pending.poll()) != null) {
+                    int status = fetchRange(fileChannel, index, length, checkpoint.validator);
+                    if (status != HttpStatus.SC_PARTIAL_CONTENT) {
+                        failure.compareAndSet(HttpStatus.SC_OK, status);
+                        return;
+                    }
+                    saveCheckpoint(fileChannel, checkpoint, index);
+                }
+            };
+
+            for (int i = 0; i < parallelism; i++) {
+                try {
+                    futures.add(executor.submit(worker));
+                } catch (RejectedExecutionException e) {
+                    // fewer workers, remaining ranges are taken by the running ones
+                    LOGGER.severe("[" + e.getClass().getName() + "]:: fan-out executor is saturated");
+                    if (futures.isEmpty()) {
+                        failure.compareAndSet(HttpStatus.SC_OK, HttpUtils.STATUS_CODE_BULKHEAD_FULL);
+                    }
+                    break;
+                }
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(HttpStatus.SC_OK, HttpUtils.STATUS_CODE_UNKNOWN);
+
+        } catch (ExecutionException e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            failure.compareAndSet(HttpStatus.SC_OK, HttpUtils.STATUS_CODE_UNKNOWN);
+
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            FanOutExecutors.release(executor);
+        }
+
+        return failure.get();
+    }
+
+    /**
+     * fetch one range and write it at its position
+     *
+     * @return status code (206 on success)
+     */
+    private int fetchRange(FileChannel fileChannel, int index, long length, String validator) {
+
+        long start = rangeStart(index);
+        long end = rangeEnd(index, length);
+
+        HttpGet request = createRequest();
+        request.setHeader("Range", "bytes=" + start + "-" + end);
+        if (validator != null) {
+            // resource changed -> server answers 200 instead of 206
+            request.setHeader("If-Range", validator);
+        }
+
+        try (CloseableHttpResponse response = engine.getHttpClient().execute(request)) {
+
+            int status = response.getStatusLine().getStatusCode();
+            if (status == HttpStatus.SC_OK) {
+                LOGGER.severe("[" + url + "] is changed during download, restart is required");
+                Files.deleteIfExists(checkpointPath);
+                return HttpStatus.SC_PRECONDITION_FAILED;
+            }
+            if (status != HttpStatus.SC_PARTIAL_CONTENT) {
+                return status;
+            }
+
+            long position = start;
+            byte[] bytes = new byte[bufferSize];
+            try (InputStream is = response.getEntity().getContent()) {
+                int n;
+                while ((n = is.read(bytes)) >= 0 && position <= end) {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, (int) Math.min(n, end - position + 1));
+                    while (buffer.hasRemaining()) {
+                        position += fileChannel.write(buffer, position);
+                    }
+                    reportProgress(buffer.limit(), length);
+                }
+            }
+
+            // connection closed early
+            if (position != end + 1) {
+                LOGGER.severe("range " + start + "-" + end + " of [" + url + "] is incomplete (" + (position - start) + " bytes)");
+                return HttpUtils.STATUS_CODE_UNKNOWN;
+            }
+
+            return status;
+
+        } catch (Exception e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            return statusOf(e);
+        }
+    }
+
+    /**
+     * download the whole file in single stream (plain GET, without Range)
+     *
+     * @return status code (200 when the file is complete)
+     */
+    private int downloadWhole() {
+
+        try (CloseableHttpResponse response = engine.getHttpClient().execute(createRequest())) {
+
+            int status = response.getStatusLine().getStatusCode();
+            if (status != HttpStatus.SC_OK) {
+                return status;
+            }
+
+            Files.deleteIfExists(checkpointPath);
+            return writeWhole(response.getEntity());
+
+        } catch (Exception e) {
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            return statusOf(e);
+        }
+    }
+
+    /**
+     * write body of a full (200) response from the beginning of the file
+     */
+    private int writeWhole(HttpEntity entity) throws IOException {
+
+        try (FileChannel fileChannel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             InputStream is = entity.getContent()) {
+
+            long total = entity.getContentLength();
+            byte[] bytes = new byte[bufferSize];
+            int n;
+            while ((n = is.read(bytes)) >= 0) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, n);
+                while (buffer.hasRemaining()) {
+                    fileChannel.write(buffer);
+                }
+                reportProgress(n, total);
+            }
+        }
+
+        return HttpStatus.SC_OK;
+    }
+
+    private void reportProgress(long delta, long total) {
+        long transferred = transferredBytes.addAndGet(delta);
+        if (progressListener != null) {
+            progressListener.onProgress(transferred, total);
+        }
+    }
+
+    private HttpGet createRequest() {
+
+        HttpGet request = new HttpGet(url);
+        request.setConfig(RequestConfig.custom()
+                .setConnectTimeout(maxConnectTimeout)
+                .setConnectionRequestTimeout(maxConnectTimeout)
+                .setSocketTimeout(maxConnectTimeout)
+                .build());
+
+        if (header != null) {
+            for (Map.Entry<String, String> entry : header.entrySet()) {
+                if (!entry.getKey().trim().isEmpty()) {
+                    request.addHeader(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        // byte range applies to the encoded body, and a compressed range can NOT be inflated on its own
+        request.setHeader("Accept-Encoding", "identity");
+
+        return request;
+    }
+
+    private long rangeStart(int index) {
+        return index * rangeSize;
+    }
+
+    private long rangeEnd(int index, long length) {
+        return Math.min(length, (index + 1) * rangeSize) - 1;
+    }
+
+    /**
+     * total length from Content-Range (ex: "bytes 0-0/12345")
+     *
+     * @return total length, -1 if unknown
+     */
+    static long parseLength(Header contentRange) {
+
+        if (contentRange == null) {
+            return -1L;
+        }
+
+        String value = contentRange.getValue();
+        int slash = value.lastIndexOf('/');
+        if (slash < 0 || value.endsWith("*")) {
+            return -1L;
+        }
+
+        try {
+            return Long.parseLong(value.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * strong ETag, otherwise Last-Modified (weak ETag can NOT be used with If-Range)
+     */
+    private static String validatorOf(CloseableHttpResponse response) {
+
+        Header etag = response.getFirstHeader("ETag");
+        if (etag != null && !etag.getValue().startsWith("W/")) {
+            return etag.getValue();
+        }
+
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        return lastModified != null ? lastModified.getValue() : null;
+    }
+
+    private static int statusOf(Exception e) {
+
+        if (e instanceof HttpHostConnectException) {
+            return HttpUtils.STATUS_CODE_CONNECTION_REFUSED;
+        }
+        if (e instanceof SocketTimeoutException) {
+            return HttpUtils.STATUS_CODE_CONNECTION_TIMEOUT;
+        }
+        return HttpUtils.STATUS_CODE_UNKNOWN;
+    }
+
+    /**
+     * load checkpoint of the same resource, otherwise start over
+     */
+    private Checkpoint loadCheckpoint(long length, String validator, int rangeCount) {
+
+        if (Files.exists(checkpointPath) && Files.exists(target)) {
+            try (Reader reader = Files.newBufferedReader(checkpointPath, StandardCharsets.UTF_8)) {
+                Checkpoint checkpoint = JsonUtils.readerToVo(reader, Checkpoint.class);
+                if (checkpoint != null
+                        && url.equals(checkpoint.url)
+                        && checkpoint.length == length
+                        && checkpoint.rangeSize == rangeSize
+                        && validator != null && validator.equals(checkpoint.validator)
+                        && checkpoint.completed != null && checkpoint.completed.length == rangeCount
+                        && Files.size(target) == length) {
+                    return checkpoint;
+                }
+            } catch (IOException e) {
+                LOGGER.severe(e.getMessage());
+            }
+            LOGGER.info("checkpoint of [" + url + "] does NOT match, start over");
+        }
+
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.url = url;
+        checkpoint.length = length;
+        checkpoint.rangeSize = rangeSize;
+        checkpoint.validator = validator;
+        checkpoint.completed = new boolean[rangeCount];
+        return checkpoint;
+    }
+
+    /**
+     * mark range completed, after its bytes are on disk
+     */
+    private void saveCheckpoint(FileChannel fileChannel, Checkpoint checkpoint, int index) {
+
+        // without validator, a partial file can NOT be trusted later -> no checkpoint
+        if (checkpoint.validator == null) {
+            return;
+        }
+
+        try {
+            fileChannel.force(false);
+
+            synchronized (checkpoint) {
+                checkpoint.completed[index] = true;
+                Path temp = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+                Files.write(temp, JsonUtils.voToJs(checkpoint, Checkpoint.class).getBytes(StandardCharsets.UTF_8));
+                Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+        } catch (IOException e) {
+            // download goes on, only resume is affected
+            LOGGER.severe(e.getMessage());
+        }
+    }
+
+    public Path getTarget() {
+        return target;
+    }
+
+    public Path getCheckpointPath() {
+        return checkpointPath;
+    }
+
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    public long getResumedBytes() {
+        return resumedBytes;
+    }
+
+    private static class Checkpoint {
+
+        private String url;
+        private long length;
+        private long rangeSize;
+        private String validator;
+        private boolean[] completed;
+    }
+
+    public static class Builder {
+
+        private String url;
+        private Map<String, String> header;
+        private Path target;
+
+        // client engine (default: shared engine of default setting)
+        private HttpEngine engine;
+
+        private int parallelism = 4;
+
+        // unit: byte
+        private long rangeSize = 8L * 1024 * 1024;
+        private int bufferSize = 64 * 1024;
+
+        // unit: ms
+        private int maxConnectTimeout = 30000;
+
+        private ProgressListener progressListener;
+
+        public Builder() {
+        }
+
+        public Builder setUrl(String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Builder setHeader(Map<String, String> header) {
+            this.header = header;
+            return this;
+        }
+
+        public Builder setTarget(Path target) {
+            this.target = target;
+            return this;
+        }
+
+        public Builder setEngine(HttpEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder setRangeSize(long rangeSize) {
+            this.rangeSize = rangeSize;
+            return this;
+        }
+
+        public Builder setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public Builder setMaxConnectTimeout(int maxConnectTimeout) {
+            this.maxConnectTimeout = maxConnectTimeout;
+            return this;
+        }
+
+        public Builder setProgressListener(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        public RangedDownloader build() {
+            return new RangedDownloader(this);
+        }
+    }
+}
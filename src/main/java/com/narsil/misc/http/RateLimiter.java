@@ -0,0 +1,297 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * client-side rate limiter (token bucket) per host or url prefix
+ * <p>
+ * each bucket refills at permitsPerSecond and holds up to burst permits.
+ * the bucket is kept as a single "theoretical arrival time" (GCRA), so acquiring a permit is one CAS on an AtomicLong,
+ * without lock; a caller which has to wait reserves its slot first, then sleeps outside of the bucket.
+ * rule of the longest matching url prefix wins, then rule of the host, then the default limit (per host, optional).
+ * url without any rule is NOT limited.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class RateLimiter {
+
+    // rules
+    private final List<Map.Entry<String, Bucket>> prefixBuckets;
+    private final Map<String, Bucket> hostBuckets;
+    private final double defaultPermitsPerSecond;
+    private final int defaultBurst;
+
+    // unit: ms (-1: wait as long as needed, 0: fail fast)
+    private final long maxWaitDuration;
+
+    // buckets of default limit, created on demand
+    private final Map<String, Bucket> defaultBuckets = new ConcurrentHashMap<>();
+
+    // statistics
+    private final LongAdder acquiredCount = new LongAdder();
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public RateLimiter(Builder builder) {
+
+        List<Map.Entry<String, Bucket>> prefixes = new ArrayList<>();
+        Map<String, Bucket> hosts = new HashMap<>();
+        for (Rule rule : builder.rules) {
+            Bucket bucket = new Bucket(rule.permitsPerSecond, rule.burst);
+            if (rule.key.contains("://")) {
+                prefixes.add(Map.entry(rule.key, bucket));
+            } else {
+                hosts.put(rule.key, bucket);
+            }
+        }
+
+        // longest prefix first
+        prefixes.sort(Comparator.comparingInt((Map.Entry<String, Bucket> e) -> e.getKey().length()).reversed());
+
+        this.prefixBuckets = List.copyOf(prefixes);
+        this.hostBuckets = Map.copyOf(hosts);
+        this.defaultPermitsPerSecond = builder.defaultPermitsPerSecond;
+        this.defaultBurst = builder.defaultBurst;
+        this.maxWaitDuration = builder.maxWaitDuration;
+    }
+
+    /**
+     * wait for a permit as long as maxWaitDuration allows (used by HttpUtils)
+     *
+     * @param uri request uri
+     * @return STATUS_CODE_UNKNOWN if permitted, otherwise STATUS_CODE_RATE_LIMITED
+     */
+    public int throttle(URI uri) {
+
+        try {
+            boolean isAcquired = maxWaitDuration < 0
+                    ? tryAcquire(uri, Long.MAX_VALUE, TimeUnit.NANOSECONDS)
+                    : tryAcquire(uri, maxWaitDuration, TimeUnit.MILLISECONDS);
+            return isAcquired ? HttpUtils.STATUS_CODE_UNKNOWN : HttpUtils.STATUS_CODE_RATE_LIMITED;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return HttpUtils.STATUS_CODE_RATE_LIMITED;
+        }
+    }
+
+    /**
+     * acquire a permit, wait until it is available
+     *
+     * @param uri request uri
+     * @throws InterruptedException interrupted while waiting
+     */
+    public void acquire(URI uri) throws InterruptedException {
+        tryAcquire(uri, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * acquire a permit only if it is available now
+     *
+     * @param uri request uri
+     * @return true if acquired
+     */
+    public boolean tryAcquire(URI uri) {
+
+        Bucket bucket = bucket(uri);
+        if (bucket == null) {
+            return true;
+        }
+
+        long wait = bucket.reserve(0L);
+        count(wait);
+        return wait == 0L;
+    }
+
+    /**
+     * acquire a permit if it becomes available within timeout
+     * <p>
+     * a caller which can NOT get the permit in time returns immediately, without waiting for the timeout
+     *
+     * @param uri request uri
+     * @param timeout max wait
+     * @param unit unit of timeout
+     * @return true if acquired
+     * @throws InterruptedException interrupted while waiting
+     */
+    public boolean tryAcquire(URI uri, long timeout, TimeUnit unit) throws InterruptedException {
+
+        Bucket bucket = bucket(uri);
+        if (bucket == null) {
+            return true;
+        }
+
+        long wait = bucket.reserve(unit.toNanos(timeout));
+        count(wait);
+        if (wait > 0L) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        return wait >= 0L;
+    }
+
+    private void count(long wait) {
+        if (wait < 0L) {
+            rejectedCount.increment();
+        } else {
+            acquiredCount.increment();
+            if (wait > 0L) {
+                throttledCount.increment();
+            }
+        }
+    }
+
+    /**
+     * bucket of the longest matching url prefix, host, or default limit
+     *
+     * @return bucket, null if NOT limited
+     */
+    private Bucket bucket(URI uri) {
+
+        if (!prefixBuckets.isEmpty()) {
+            String url = uri.toString();
+            for (Map.Entry<String, Bucket> entry : prefixBuckets) {
+                if (url.startsWith(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+
+        String host = uri.getHost() != null ? uri.getHost() : "";
+        Bucket bucket = hostBuckets.get(host);
+        if (bucket != null || defaultPermitsPerSecond <= 0) {
+            return bucket;
+        }
+
+        bucket = defaultBuckets.get(host);
+        return bucket != null ? bucket : defaultBuckets.computeIfAbsent(host, k -> new Bucket(defaultPermitsPerSecond, defaultBurst));
+    }
+
+    public long getAcquiredCount() {
+        return acquiredCount.sum();
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getMaxWaitDuration() {
+        return maxWaitDuration;
+    }
+
+    /**
+     * token bucket as GCRA (generic cell rate algorithm)
+     */
+    private static class Bucket {
+
+        // unit: ns
+        private final long interval;
+        private final long tolerance;
+
+        // theoretical arrival time of next permit (unit: ns), full bucket at creation
+        private final AtomicLong arrivalTime = new AtomicLong(System.nanoTime());
+
+        private Bucket(double permitsPerSecond, int burst) {
+            this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+            this.tolerance = interval * (Math.max(1, burst) - 1);
+        }
+
+        /**
+         * reserve a permit
+         *
+         * @param maxWait max wait (unit: ns)
+         * @return wait before the permit is usable (unit: ns), -1 if it takes longer than maxWait (nothing reserved)
+         */
+        private long reserve(long maxWait) {
+
+            while (true) {
+                long now = System.nanoTime();
+                long current = arrivalTime.get();
+
+                // max(current, now), overflow-safe for nanoTime
+                long start = (current - now > 0L) ? current : now;
+                long wait = start - tolerance - now;
+                if (wait > maxWait) {
+                    return -1L;
+                }
+
+                if (arrivalTime.compareAndSet(current, start + interval)) {
+                    return Math.max(0L, wait);
+                }
+            }
+        }
+    }
+
+    private static class Rule {
+
+        private final String key;
+        private final double permitsPerSecond;
+        private final int burst;
+
+        private Rule(String key, double permitsPerSecond, int burst) {
+            this.key = key;
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    public static class Builder {
+
+        private final List<Rule> rules = new ArrayList<>();
+
+        // per host limit of url without rule (default: disabled)
+        private double defaultPermitsPerSecond = 0.0;
+        private int defaultBurst = 1;
+
+        // unit: ms (default: -1, wait as long as needed)
+        private long maxWaitDuration = -1L;
+
+        public Builder() {
+        }
+
+        /**
+         * add limit of a host (ex: api.partner.com) or url prefix (ex: https://api.partner.com/v1/search)
+         *
+         * @param hostOrUrlPrefix host, or url prefix (contains "://")
+         * @param permitsPerSecond refill rate
+         * @param burst bucket capacity
+         * @return builder
+         */
+        public Builder setLimit(String hostOrUrlPrefix, double permitsPerSecond, int burst) {
+            rules.removeIf(rule -> rule.key.equals(hostOrUrlPrefix));
+            rules.add(new Rule(hostOrUrlPrefix, permitsPerSecond, burst));
+            return this;
+        }
+
+        public Builder setDefaultLimit(double defaultPermitsPerSecond, int defaultBurst) {
+            this.defaultPermitsPerSecond = defaultPermitsPerSecond;
+            this.defaultBurst = defaultBurst;
+            return this;
+        }
+
+        public Builder setMaxWaitDuration(long maxWaitDuration) {
+            this.maxWaitDuration = maxWaitDuration;
+            return this;
+        }
+
+        public RateLimiter build() {
+            return new RateLimiter(this);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.Tuple;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * request coalescer (single-flight)
+ * <p>
+ * while a request of some key is in flight, identical requests of the same key wait for it and share its result,
+ * so only one physical request is sent during a thundering herd.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class RequestCoalescer {
+
+    private static final RequestCoalescer SHARED = new RequestCoalescer();
+
+    private final Map<String, CompletableFuture<Tuple.Pair<Integer, String>>> inFlight = new ConcurrentHashMap<>();
+
+    // statistics
+    private final LongAdder executedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    public RequestCoalescer() {
+    }
+
+    /**
+     * process-wide coalescer
+     *
+     * @return shared coalescer
+     */
+    public static RequestCoalescer shared() {
+        return SHARED;
+    }
+
+    /**
+     * execute request, or join the identical one in flight
+     *
+     * @param key request key (ex: url + header)
+     * @param request request
+     * @return response data
+     */
+    public Tuple.Pair<Integer, String> execute(String key, Supplier<Tuple.Pair<Integer, String>> request) {
+
+        CompletableFuture<Tuple.Pair<Integer, String>> future = new CompletableFuture<>();
+        CompletableFuture<Tuple.Pair<Integer, String>> leader = inFlight.putIfAbsent(key, future);
+
+        // follower -> wait for the leader's result
+        if (leader != null) {
+            coalescedCount.increment();
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        // leader -> send request, then hand the result to followers
+        executedCount.increment();
+        try {
+            Tuple.Pair<Integer, String> response = request.get();
+            inFlight.remove(key, future);
+            future.complete(response);
+            return response;
+
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public long getExecutedCount() {
+        return executedCount.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,257 @@
+package com.narsil.misc.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * metrics of one request
+ * <p>
+ * timing & byte counts are captured by the engine (see {@link #requestExecutor()} and {@link #responseInterceptor()})
+ * into the http context of the request, and collected by HttpUtils when the request completes.
+ * {@link Http2Engine} records the same attributes from the JDK exchange, but body bytes only (headers are NOT counted),
+ * and connect time is NOT reported (-1, NOT exposed by JDK HttpClient).
+ * <p>
+ * connect time: request start -> connection ready (pool lease + TCP connect + TLS handshake)<br>
+ * time to first byte: request start -> response header received<br>
+ * total time: request start -> response body handled
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class RequestMetrics {
+
+    private static final String ATTR_CONNECTED_AT = "narsil.metrics.connected-at";
+    private static final String ATTR_FIRST_BYTE_AT = "narsil.metrics.first-byte-at";
+    private static final String ATTR_BYTES_SENT = "narsil.metrics.bytes-sent";
+    private static final String ATTR_BYTES_RECEIVED = "narsil.metrics.bytes-received";
+
+    private final String host;
+    private final int statusCode;
+    private final long bytesSent;
+    private final long bytesReceived;
+
+    // unit: ns (-1 if NOT reached, ex: connection refused)
+    private final long connectTime;
+    private final long timeToFirstByte;
+    private final long totalTime;
+
+    public RequestMetrics(String host, int statusCode, long bytesSent, long bytesReceived,
+                          long connectTime, long timeToFirstByte, long totalTime) {
+
+        this.host = host;
+        this.statusCode = statusCode;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.connectTime = connectTime;
+        this.timeToFirstByte = timeToFirstByte;
+        this.totalTime = totalTime;
+    }
+
+    /**
+     * collect metrics captured in http context
+     * <p>
+     * NOTE: body of a streaming handler is counted up to the point it is handed over to the caller
+     *
+     * @param context http context of the request
+     * @param host target host
+     * @param statusCode status code
+     * @param startTime request start (System.nanoTime())
+     * @return metrics
+     */
+    public static RequestMetrics collect(HttpContext context, String host, int statusCode, long startTime) {
+
+        long now = System.nanoTime();
+        Long connectedAt = (Long) context.getAttribute(ATTR_CONNECTED_AT);
+        Long firstByteAt = (Long) context.getAttribute(ATTR_FIRST_BYTE_AT);
+        AtomicLong bytesSent = (AtomicLong) context.getAttribute(ATTR_BYTES_SENT);
+        AtomicLong bytesReceived = (AtomicLong) context.getAttribute(ATTR_BYTES_RECEIVED);
+
+        return new RequestMetrics(host, statusCode,
+                bytesSent != null ? bytesSent.get() : 0L,
+                bytesReceived != null ? bytesReceived.get() : 0L,
+                connectedAt != null ? connectedAt - startTime : -1L,
+                firstByteAt != null ? firstByteAt - startTime : -1L,
+                now - startTime);
+    }
+
+    /**
+     * request executor which records connection-ready time, first-byte time and bytes sent
+     *
+     * @return request executor
+     */
+    public static HttpRequestExecutor requestExecutor() {
+
+        return new HttpRequestExecutor() {
+
+            @Override
+            protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                    throws IOException, HttpException {
+
+                context.setAttribute(ATTR_CONNECTED_AT, System.nanoTime());
+                long sent = conn.getMetrics().getSentBytesCount();
+                try {
+                    return super.doSendRequest(request, conn, context);
+                } finally {
+                    counter(context, ATTR_BYTES_SENT).addAndGet(conn.getMetrics().getSentBytesCount() - sent);
+                }
+            }
+
+            @Override
+            protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                    throws HttpException, IOException {
+
+                long received = conn.getMetrics().getReceivedBytesCount();
+                HttpResponse response = super.doReceiveResponse(request, conn, context);
+                context.setAttribute(ATTR_FIRST_BYTE_AT, System.nanoTime());
+                // header bytes (body is counted by response interceptor)
+                counter(context, ATTR_BYTES_RECEIVED).addAndGet(conn.getMetrics().getReceivedBytesCount() - received);
+                return response;
+            }
+        };
+    }
+
+    /**
+     * response interceptor which counts body bytes as they are read
+     *
+     * @return response interceptor
+     */
+    public static HttpResponseInterceptor responseInterceptor() {
+
+        return (response, context) -> {
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                response.setEntity(countReceived(entity, context));
+            }
+        };
+    }
+
+    /**
+     * record response header received (for engines without request executor, ex: Http2Engine)
+     *
+     * @param context http context of the request
+     */
+    public static void recordFirstByte(HttpContext context) {
+        context.setAttribute(ATTR_FIRST_BYTE_AT, System.nanoTime());
+    }
+
+    /**
+     * counter of bytes sent (for engines without request executor, ex: Http2Engine)
+     *
+     * @param context http context of the request
+     * @return counter
+     */
+    public static AtomicLong sentCounter(HttpContext context) {
+        return counter(context, ATTR_BYTES_SENT);
+    }
+
+    /**
+     * wrap entity so its body bytes are counted as received while read
+     *
+     * @param entity response entity
+     * @param context http context of the request
+     * @return counting entity
+     */
+    public static HttpEntity countReceived(HttpEntity entity, HttpContext context) {
+        return new CountingEntity(entity, counter(context, ATTR_BYTES_RECEIVED));
+    }
+
+    private static AtomicLong counter(HttpContext context, String name) {
+
+        AtomicLong counter = (AtomicLong) context.getAttribute(name);
+        if (counter == null) {
+            counter = new AtomicLong();
+            context.setAttribute(name, counter);
+        }
+        return counter;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getConnectTime() {
+        return connectTime;
+    }
+
+    public long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    @Override
+    public String toString() {
+        return host + " (" + statusCode + ") sent=" + bytesSent + " received=" + bytesReceived
+                + " connect=" + connectTime + "ns ttfb=" + timeToFirstByte + "ns total=" + totalTime + "ns";
+    }
+
+    private static class CountingEntity extends HttpEntityWrapper {
+
+        private final AtomicLong counter;
+
+        private CountingEntity(HttpEntity entity, AtomicLong counter) {
+            super(entity);
+            this.counter = counter;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+
+            return new FilterInputStream(super.getContent()) {
+
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        counter.incrementAndGet();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) {
+                        counter.addAndGet(n);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            try (InputStream is = getContent()) {
+                is.transferTo(outStream);
+            }
+        }
+    }
+}
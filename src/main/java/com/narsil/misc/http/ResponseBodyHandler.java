@@ -0,0 +1,33 @@
+package com.narsil.misc.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+
+import java.io.IOException;
+
+/**
+ * response body handler
+ * <p>
+ * converts response entity into body object, see {@link ResponseBodyHandlers} for common implementation
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+@FunctionalInterface
+public interface ResponseBodyHandler<T> extends ResponseHandler<T> {
+
+    T handle(HttpEntity entity) throws IOException;
+
+    /**
+     * delegate entity to {@link #handle(HttpEntity)}, or null if response has no entity
+     *
+     * @param response http response
+     * @return body
+     * @throws IOException I/O error
+     */
+    @Override
+    default T handleResponse(HttpResponse response) throws IOException {
+        return response.getEntity() != null ? handle(response.getEntity()) : null;
+    }
+}
@@ -0,0 +1,194 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.JsonUtils;
+import com.narsil.misc.json.JsonArrayIterator;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * common response body handlers
+ * <p>
+ * except {@link #ofString()}, the handlers stream the body in constant memory
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class ResponseBodyHandlers {
+
+    // unit: byte
+    private static final int DEFAULT_BUFFER_SIZE = 65536;
+
+    /**
+     * whole body as string (charset from Content-Type, default ISO-8859-1)
+     *
+     * @return handler
+     */
+    public static ResponseBodyHandler<String> ofString() {
+        return EntityUtils::toString;
+    }
+
+    /**
+     * write body to file through FileChannel (file is created or truncated)
+     *
+     * @param path target file
+     * @return handler, body is the target file
+     */
+    public static ResponseBodyHandler<Path> ofPath(Path path) {
+
+        return entity -> {
+
+            try (InputStream is = entity.getContent();
+                    ReadableByteChannel source = Channels.newChannel(is);
+                    FileChannel target = FileChannel.open(path,
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                long position = 0L;
+                long count;
+                while ((count = target.transferFrom(source, position, DEFAULT_BUFFER_SIZE)) > 0) {
+                    position += count;
+                }
+            }
+
+            return path;
+        };
+    }
+
+    /**
+     * body as InputStream
+     * <p>
+     * caller MUST close the stream, which releases the connection back to pool
+     *
+     * @return handler
+     */
+    public static ResponseBodyHandler<InputStream> ofInputStream() {
+
+        return new ResponseBodyHandler<>() {
+
+            @Override
+            public InputStream handle(HttpEntity entity) throws IOException {
+                return entity.getContent();
+            }
+
+            @Override
+            public boolean isStreaming() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * deliver body to callback chunk by chunk
+     * <p>
+     * the buffer is reused, callback must consume it before returning
+     *
+     * @param consumer chunk callback
+     * @return handler, body is total byte count
+     */
+    public static ResponseBodyHandler<Long> ofByteBuffers(Consumer<ByteBuffer> consumer) {
+        return ofByteBuffers(consumer, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * deliver body to callback chunk by chunk
+     * <p>
+     * the buffer is reused, callback must consume it before returning
+     *
+     * @param consumer chunk callback
+     * @param bufferSize chunk size (unit: byte)
+     * @return handler, body is total byte count
+     */
+    public static ResponseBodyHandler<Long> ofByteBuffers(Consumer<ByteBuffer> consumer, int bufferSize) {
+
+        return entity -> {
+
+            long total = 0L;
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+
+            try (InputStream is = entity.getContent();
+                    ReadableByteChannel source = Channels.newChannel(is)) {
+
+                while (source.read(buffer) != -1) {
+                    if (buffer.position() > 0) {
+                        buffer.flip();
+                        total += buffer.remaining();
+                        consumer.accept(buffer);
+                        buffer.clear();
+                    }
+                }
+            }
+
+            return total;
+        };
+    }
+
+    /**
+     * decode json body straight into value object (no intermediate string)
+     *
+     * @param typeOfT class type of value object (ex: ValueObject.class)
+     * @param <T> value object
+     * @return handler
+     */
+    public static <T> ResponseBodyHandler<T> ofJson(Type typeOfT) {
+
+        return entity -> {
+            try (Reader reader = configReader(entity)) {
+                return JsonUtils.readerToVo(reader, typeOfT);
+            }
+        };
+    }
+
+    /**
+     * decode json array body element by element, each element is delivered to callback
+     * <p>
+     * the whole list is never materialized
+     *
+     * @param typeOfT class type of array element (ex: ValueObject.class)
+     * @param consumer element callback
+     * @param <T> value object
+     * @return handler, body is element count
+     */
+    public static <T> ResponseBodyHandler<Long> ofJsonArray(Type typeOfT, Consumer<T> consumer) {
+
+        return entity -> {
+
+            long count = 0L;
+            try (JsonArrayIterator<T> iterator = JsonUtils.readerToIterator(configReader(entity), typeOfT)) {
+                while (iterator.hasNext()) {
+                    consumer.accept(iterator.next());
+                    count++;
+                }
+            }
+
+            return count;
+        };
+    }
+
+    private static Reader configReader(HttpEntity entity) throws IOException {
+
+        // json default charset: UTF-8
+        Charset charset = ContentType.getOrDefault(entity).getCharset();
+        if (charset == null) {
+            charset = StandardCharsets.UTF_8;
+        }
+
+        return new BufferedReader(new InputStreamReader(entity.getContent(), charset), DEFAULT_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,511 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.JsonUtils;
+import com.narsil.misc.Tuple;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * http response cache (for GET)
+ * <p>
+ * honors Cache-Control (max-age, no-cache, no-store) & Expires for freshness,
+ * and revalidates stale entry by conditional request (If-None-Match / If-Modified-Since).
+ * entries are held in a size-bounded LRU, either on heap or on disk.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class ResponseCache {
+
+    private static final Logger LOGGER = Logger.getLogger("ResponseCache");
+
+    // converts response into cache entry (also for 304, which has no entity)
+    private static final ResponseHandler<Entry> HANDLER = Entry::of;
+
+    private final Storage storage;
+
+    // statistics
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder revalidationCount = new LongAdder();
+
+    private ResponseCache(Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * cache on heap
+     *
+     * @param maxSize max total size of cached body (unit: byte, estimated)
+     * @return response cache
+     */
+    public static ResponseCache onHeap(long maxSize) {
+        return new ResponseCache(new HeapStorage(maxSize));
+    }
+
+    /**
+     * cache on disk, one file per entry
+     *
+     * @param dir cache directory (created if not exists)
+     * @param maxSize max total size of cache files (unit: byte)
+     * @return response cache
+     */
+    public static ResponseCache onDisk(Path dir, long maxSize) {
+        return new ResponseCache(new DiskStorage(dir, maxSize));
+    }
+
+    /**
+     * response handler which converts response into cache entry
+     *
+     * @return handler
+     */
+    public static ResponseHandler<Entry> handler() {
+        return HANDLER;
+    }
+
+    /**
+     * cache key of GET request
+     *
+     * @param url url
+     * @param header request header
+     * @return cache key
+     */
+    public static String key(String url, Map<String, String> header) {
+
+        StringBuilder sb = new StringBuilder(url);
+        if (header != null) {
+            // sort header -> same key regardless of map ordering
+            new TreeMap<>(header).forEach((k, v) -> sb.append('\n').append(k).append(": ").append(v));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * serve from cache if fresh, otherwise exchange with server (conditional when entry is stale)
+     *
+     * @param key cache key
+     * @param exchange send request (with conditional headers of given stale entry, if any)
+     * @return response data
+     */
+    public Tuple.Pair<Integer, String> get(String key, Function<Entry, Tuple.Pair<Integer, Entry>> exchange) {
+
+        Entry cached = storage.get(key);
+        if (cached != null && cached.isFresh()) {
+            hitCount.increment();
+            return Tuple.collect(cached.status, cached.body);
+        }
+
+        Tuple.Pair<Integer, Entry> response = exchange.apply(cached);
+        Entry entry = response.getB();
+
+        // not modified -> refresh freshness of stale entry, serve cached body
+        if (response.getA() == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+            revalidationCount.increment();
+            storage.put(key, cached.refresh(entry));
+            return Tuple.collect(cached.status, cached.body);
+        }
+
+        missCount.increment();
+        if (entry != null && entry.isCacheable()) {
+            storage.put(key, entry);
+        } else if (cached != null) {
+            storage.remove(key);
+        }
+
+        return Tuple.collect(response.getA(), entry != null ? entry.body : null);
+    }
+
+    public void clear() {
+        storage.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getRevalidationCount() {
+        return revalidationCount.sum();
+    }
+
+    public int getEntryCount() {
+        return storage.count();
+    }
+
+    public long getSize() {
+        return storage.size();
+    }
+
+    public static class Entry {
+
+        private int status;
+        private String body;
+        private String etag;
+        private String lastModified;
+        // epoch time (unit: ms), 0 -> always revalidate
+        private long expiresAt;
+        private boolean noStore;
+
+        public Entry() {
+        }
+
+        private static Entry of(HttpResponse response) throws IOException {
+
+            Entry entry = new Entry();
+            entry.status = response.getStatusLine().getStatusCode();
+            entry.body = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : null;
+            entry.etag = headerValue(response, "ETag");
+            entry.lastModified = headerValue(response, "Last-Modified");
+            entry.configFreshness(response);
+
+            return entry;
+        }
+
+        private static String headerValue(HttpResponse response, String name) {
+            Header header = response.getFirstHeader(name);
+            return header != null ? header.getValue() : null;
+        }
+
+        private void configFreshness(HttpResponse response) {
+
+            boolean noCache = false;
+            Long maxAge = null;
+
+            for (Header header : response.getHeaders("Cache-Control")) {
+                for (HeaderElement element : header.getElements()) {
+                    switch (element.getName().toLowerCase()) {
+                        case "no-store" -> noStore = true;
+                        case "no-cache" -> noCache = true;
+                        case "max-age" -> {
+                            try {
+                                maxAge = Long.parseLong(element.getValue());
+                            } catch (NumberFormatException e) {
+                                LOGGER.warning("invalid max-age: " + element.getValue());
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            }
+
+            // precedence: no-cache (always revalidate) > max-age > Expires
+            if (noCache) {
+                expiresAt = 0L;
+            } else if (maxAge != null) {
+                expiresAt = System.currentTimeMillis() + maxAge * 1000L;
+            } else {
+                String expires = headerValue(response, "Expires");
+                Date date = expires != null ? DateUtils.parseDate(expires) : null;
+                expiresAt = date != null ? date.getTime() : 0L;
+            }
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        private boolean isCacheable() {
+            // only 200 OK, and either fresh for a while or able to be revalidated
+            return status == HttpStatus.SC_OK && !noStore && (expiresAt > 0L || etag != null || lastModified != null);
+        }
+
+        private Entry refresh(Entry notModified) {
+
+            // copy instead of mutating, entry may be read by other threads
+            Entry entry = new Entry();
+            entry.status = status;
+            entry.body = body;
+            entry.etag = etag;
+            entry.lastModified = lastModified;
+            entry.expiresAt = expiresAt;
+
+            if (notModified != null) {
+                entry.expiresAt = notModified.expiresAt;
+                if (notModified.etag != null) {
+                    entry.etag = notModified.etag;
+                }
+                if (notModified.lastModified != null) {
+                    entry.lastModified = notModified.lastModified;
+                }
+            }
+
+            return entry;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * add validators of this entry to request
+         *
+         * @param request http request
+         */
+        public void setConditionalHeaders(HttpRequestBase request) {
+            if (etag != null) {
+                request.setHeader("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                request.setHeader("If-Modified-Since", lastModified);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return body;
+        }
+
+        private long estimateSize() {
+            // UTF-16 body + fixed overhead
+            return (body != null ? body.length() * 2L : 0L) + 128L;
+        }
+    }
+
+    private interface Storage {
+
+        Entry get(String key);
+
+        void put(String key, Entry entry);
+
+        void remove(String key);
+
+        void clear();
+
+        int count();
+
+        long size();
+    }
+
+    private static class HeapStorage implements Storage {
+
+        private final long maxSize;
+        private long size = 0L;
+
+        // access order -> LRU
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private HeapStorage(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public synchronized Entry get(String key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public synchronized void put(String key, Entry entry) {
+
+            remove(key);
+
+            long entrySize = entry.estimateSize();
+            if (entrySize > maxSize) {
+                return;
+            }
+
+            entries.put(key, entry);
+            size += entrySize;
+
+            // evict least recently used
+            Iterator<Entry> it = entries.values().iterator();
+            while (size > maxSize && it.hasNext()) {
+                size -= it.next().estimateSize();
+                it.remove();
+            }
+        }
+
+        @Override
+        public synchronized void remove(String key) {
+            Entry old = entries.remove(key);
+            if (old != null) {
+                size -= old.estimateSize();
+            }
+        }
+
+        @Override
+        public synchronized void clear() {
+            entries.clear();
+            size = 0L;
+        }
+
+        @Override
+        public synchronized int count() {
+            return entries.size();
+        }
+
+        @Override
+        public synchronized long size() {
+            return size;
+        }
+    }
+
+    private static class DiskStorage implements Storage {
+
+        private static final String FILE_SUFFIX = ".cache";
+
+        private final Path dir;
+        private final long maxSize;
+        private long size = 0L;
+
+        // file name -> file size, access order -> LRU
+        private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+
+        private DiskStorage(Path dir, long maxSize) {
+
+            this.dir = dir;
+            this.maxSize = maxSize;
+
+            try {
+                Files.createDirectories(dir);
+
+                // index existing files, oldest first
+                try (Stream<Path> files = Files.list(dir)) {
+                    files.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                            .map(Path::toFile)
+                            .sorted(Comparator.comparingLong(File::lastModified))
+                            .forEach(file -> {
+                                index.put(file.getName(), file.length());
+                                size += file.length();
+                            });
+                }
+            } catch (IOException e) {
+                LOGGER.severe(e.getMessage());
+            }
+        }
+
+        private String fileName(String key) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+                return String.format("%064x", new BigInteger(1, digest)) + FILE_SUFFIX;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public synchronized Entry get(String key) {
+
+            String fileName = fileName(key);
+            if (index.get(fileName) == null) {
+                return null;
+            }
+
+            try (Reader reader = Files.newBufferedReader(dir.resolve(fileName), StandardCharsets.UTF_8)) {
+                return JsonUtils.readerToVo(reader, Entry.class);
+            } catch (IOException e) {
+                LOGGER.severe(e.getMessage());
+                remove(key);
+            }
+
+            return null;
+        }
+
+        @Override
+        public synchronized void put(String key, Entry entry) {
+
+            remove(key);
+
+            String fileName = fileName(key);
+            byte[] bytes = JsonUtils.voToJs(entry, Entry.class).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > maxSize) {
+                return;
+            }
+
+            try {
+                Files.write(dir.resolve(fileName), bytes);
+                index.put(fileName, (long) bytes.length);
+                size += bytes.length;
+            } catch (IOException e) {
+                LOGGER.severe(e.getMessage());
+                return;
+            }
+
+            // evict least recently used
+            Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+            while (size > maxSize && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                delete(eldest.getKey());
+                size -= eldest.getValue();
+                it.remove();
+            }
+        }
+
+        @Override
+        public synchronized void remove(String key) {
+            String fileName = fileName(key);
+            Long old = index.remove(fileName);
+            if (old != null) {
+                delete(fileName);
+                size -= old;
+            }
+        }
+
+        private void delete(String fileName) {
+            try {
+                Files.deleteIfExists(dir.resolve(fileName));
+            } catch (IOException e) {
+                LOGGER.severe(e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void clear() {
+            index.keySet().forEach(this::delete);
+            index.clear();
+            size = 0L;
+        }
+
+        @Override
+        public synchronized int count() {
+            return index.size();
+        }
+
+        @Override
+        public synchronized long size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.narsil.misc.http;
+
+import org.apache.http.HttpResponse;
+
+import java.io.IOException;
+
+/**
+ * whole response handler
+ * <p>
+ * converts status line, headers & entity into result object (ex: cache entry, see {@link ResponseCache#handler()}).
+ * most callers only need the entity, see {@link ResponseBodyHandler}
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+@FunctionalInterface
+public interface ResponseHandler<T> {
+
+    /**
+     * convert whole response into result object
+     *
+     * @param response http response
+     * @return result
+     * @throws IOException I/O error
+     */
+    T handleResponse(HttpResponse response) throws IOException;
+
+    /**
+     * whether the returned result keeps reading from the connection after handleResponse() returns
+     * <p>
+     * if true, response is NOT closed by HttpUtils, and the result (ex: InputStream) must be closed by caller
+     *
+     * @return streaming or not
+     */
+    default boolean isStreaming() {
+        return false;
+    }
+}
@@ -0,0 +1,222 @@
+package com.narsil.misc.http;
+
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * retry policy
+ * <p>
+ * retries on configurable status codes with exponential backoff & full jitter, and respects Retry-After.
+ * retries are limited by a per-host budget (token bucket refilled by a ratio of original requests),
+ * so retries cannot amplify an outage.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class RetryPolicy {
+
+    public static final int STATUS_CODE_TOO_MANY_REQUESTS = 429;
+    public static final int STATUS_CODE_SERVICE_UNAVAILABLE = 503;
+
+    private final int maxRetries;
+
+    // unit: ms
+    private final long baseDelay;
+    private final long maxDelay;
+
+    private final Set<Integer> retryStatusCodes;
+
+    // retry budget: each request deposits budgetRatio token, each retry withdraws 1 token
+    private final double budgetRatio;
+    private final double budgetCapacity;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    // statistics
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder budgetExhaustedCount = new LongAdder();
+
+    public RetryPolicy(Builder builder) {
+
+        this.maxRetries = builder.maxRetries;
+        this.baseDelay = builder.baseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.retryStatusCodes = Set.copyOf(builder.retryStatusCodes);
+        this.budgetRatio = builder.budgetRatio;
+        this.budgetCapacity = builder.budgetCapacity;
+    }
+
+    /**
+     * record an original (non-retry) request, which refills the host budget
+     *
+     * @param host target host
+     */
+    public void onRequest(String host) {
+        budget(host).deposit(budgetRatio);
+    }
+
+    /**
+     * decide whether to retry, and how long to wait
+     *
+     * @param host target host
+     * @param attempt attempt index which just finished (0 -> original request)
+     * @param statusCode status code of the attempt
+     * @param retryAfter value of Retry-After header (null if absent)
+     * @return delay before retry (unit: ms), -1 if NOT retrying
+     */
+    public long retryDelay(String host, int attempt, int statusCode, String retryAfter) {
+
+        if (attempt >= maxRetries || !retryStatusCodes.contains(statusCode)) {
+            return -1L;
+        }
+
+        // exponential backoff with full jitter: random [0, min(maxDelay, baseDelay * 2^attempt)]
+        long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt, 30));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+
+        // server asks to wait -> never sooner than that, give up if longer than max delay
+        long serverDelay = parseRetryAfter(retryAfter);
+        if (serverDelay > maxDelay) {
+            return -1L;
+        }
+        delay = Math.max(delay, serverDelay);
+
+        if (!budget(host).withdraw()) {
+            budgetExhaustedCount.increment();
+            return -1L;
+        }
+
+        retryCount.increment();
+        return delay;
+    }
+
+    private Budget budget(String host) {
+        return budgets.computeIfAbsent(host != null ? host : "", k -> new Budget(budgetCapacity));
+    }
+
+    /**
+     * parse Retry-After (delay-seconds or HTTP-date)
+     *
+     * @param retryAfter header value
+     * @return delay (unit: ms), 0 if absent or invalid
+     */
+    static long parseRetryAfter(String retryAfter) {
+
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            return Math.max(0L, Long.parseLong(retryAfter.trim()) * 1000L);
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(retryAfter.trim());
+            return date != null ? Math.max(0L, date.getTime() - System.currentTimeMillis()) : 0L;
+        }
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getBaseDelay() {
+        return baseDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public Set<Integer> getRetryStatusCodes() {
+        return retryStatusCodes;
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.sum();
+    }
+
+    private static class Budget {
+
+        private final double capacity;
+        private double tokens;
+
+        private Budget(double capacity) {
+            this.capacity = capacity;
+            // start full, so a cold host can still retry
+            this.tokens = capacity;
+        }
+
+        private synchronized void deposit(double amount) {
+            tokens = Math.min(capacity, tokens + amount);
+        }
+
+        private synchronized boolean withdraw() {
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static class Builder {
+
+        private int maxRetries = 3;
+
+        // unit: ms
+        private long baseDelay = 100L;
+        private long maxDelay = 10000L;
+
+        private Set<Integer> retryStatusCodes = Set.of(STATUS_CODE_TOO_MANY_REQUESTS, STATUS_CODE_SERVICE_UNAVAILABLE);
+
+        // retry budget (default: retries up to 10% of requests, burst of 10 retries)
+        private double budgetRatio = 0.1;
+        private double budgetCapacity = 10.0;
+
+        public Builder() {
+        }
+
+        public Builder setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder setBaseDelay(long baseDelay) {
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        public Builder setMaxDelay(long maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder setRetryStatusCodes(Set<Integer> retryStatusCodes) {
+            this.retryStatusCodes = retryStatusCodes;
+            return this;
+        }
+
+        public Builder setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        public Builder setBudgetCapacity(double budgetCapacity) {
+            this.budgetCapacity = budgetCapacity;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.narsil.misc.http;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * multipart/form-data entity which streams files straight from FileChannel
+ * <p>
+ * sent with chunked transfer encoding, files are read chunk by chunk (never buffered as a whole),
+ * and file parts can be gzip-compressed on the fly (part is sent as "filename.gz", application/gzip).
+ * the entity is repeatable (files are re-read), so it can be retried.
+ * {@link #getContent()} streams the same body through a pipe fed by a writer thread (progress is NOT reported).
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class StreamingMultipartEntity extends AbstractHttpEntity {
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DASHES = "--".getBytes(StandardCharsets.US_ASCII);
+
+    private final String boundary;
+    private final List<Part> parts;
+    private final boolean enableCompression;
+    private final int chunkSize;
+    private final ProgressListener progressListener;
+
+    public StreamingMultipartEntity(Builder builder) {
+
+        this.boundary = builder.boundary != null ? builder.boundary : UUID.randomUUID().toString().replace("-", "");
+        this.parts = List.copyOf(builder.parts);
+        this.enableCompression = builder.enableCompression;
+        this.chunkSize = builder.chunkSize;
+        this.progressListener = builder.progressListener;
+
+        setContentType(ContentType.MULTIPART_FORM_DATA.withCharset(StandardCharsets.UTF_8).toString() + "; boundary=" + boundary);
+        setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        // chunked
+        return -1L;
+    }
+
+    /**
+     * body as a stream, written on a daemon thread (closing the stream early stops the writer)
+     *
+     * @return body stream, must be closed by caller
+     * @throws IOException pipe can NOT be created
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+
+        return EntityPipe.open(os -> write(os, null), runnable -> {
+            Thread thread = new Thread(runnable, "multipart-writer");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        write(outStream, progressListener);
+    }
+
+    private void write(OutputStream outStream, ProgressListener listener) throws IOException {
+
+        long total = 0L;
+        for (Part part : parts) {
+            if (part.path != null) {
+                total += Files.size(part.path);
+            }
+        }
+
+        long transferred = 0L;
+        for (Part part : parts) {
+
+            outStream.write(DASHES);
+            outStream.write(boundary.getBytes(StandardCharsets.US_ASCII));
+            outStream.write(CRLF);
+
+            if (part.path == null) {
+                writeHeader(outStream, "Content-Disposition: form-data; name=\"" + escape(part.name) + "\"");
+                writeHeader(outStream, "Content-Type: " + ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8));
+                outStream.write(CRLF);
+                outStream.write(part.value.getBytes(StandardCharsets.UTF_8));
+
+            } else {
+                String filename = part.path.getFileName().toString() + (enableCompression ? ".gz" : "");
+                String contentType = enableCompression ? "application/gzip" : part.contentType.toString();
+                writeHeader(outStream, "Content-Disposition: form-data; name=\"" + escape(part.name) + "\"; filename=\"" + escape(filename) + "\"");
+                writeHeader(outStream, "Content-Type: " + contentType);
+                outStream.write(CRLF);
+                transferred = writeFile(outStream, part.path, transferred, total, listener);
+            }
+
+            outStream.write(CRLF);
+        }
+
+        outStream.write(DASHES);
+        outStream.write(boundary.getBytes(StandardCharsets.US_ASCII));
+        outStream.write(DASHES);
+        outStream.write(CRLF);
+        outStream.flush();
+    }
+
+    private long writeFile(OutputStream outStream, Path path, long transferred, long total, ProgressListener listener) throws IOException {
+
+        // part must NOT close the request stream
+        OutputStream target = new FilterOutputStream(outStream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+
+        GZIPOutputStream gzip = enableCompression ? new GZIPOutputStream(target, chunkSize) : null;
+        OutputStream sink = gzip != null ? gzip : target;
+
+        // one chunk-sized buffer per part, the file is never held in memory as a whole
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int length;
+            while ((length = fileChannel.read(buffer)) >= 0) {
+                sink.write(buffer.array(), 0, length);
+                buffer.clear();
+
+                transferred += length;
+                if (listener != null && length > 0) {
+                    listener.onProgress(transferred, total);
+                }
+            }
+        }
+
+        if (gzip != null) {
+            // write gzip trailer & release deflater, request stream is kept open by the wrapper
+            gzip.close();
+        }
+        return transferred;
+    }
+
+    private static void writeHeader(OutputStream outStream, String header) throws IOException {
+        outStream.write(header.getBytes(StandardCharsets.UTF_8));
+        outStream.write(CRLF);
+    }
+
+    private static String escape(String value) {
+        // same as browsers
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    private static class Part {
+
+        private final String name;
+        private final String value;
+        private final Path path;
+        private final ContentType contentType;
+
+        private Part(String name, String value, Path path, ContentType contentType) {
+            this.name = name;
+            this.value = value;
+            this.path = path;
+            this.contentType = contentType;
+        }
+    }
+
+    public static class Builder {
+
+        private final List<Part> parts = new ArrayList<>();
+        private String boundary;
+        private boolean enableCompression = false;
+
+        // unit: byte
+        private int chunkSize = 64 * 1024;
+
+        // progress of file bytes read (before compression)
+        private ProgressListener progressListener;
+
+        public Builder() {
+        }
+
+        public Builder addTextPart(String name, String value) {
+            parts.add(new Part(name, value, null, null));
+            return this;
+        }
+
+        public Builder addFilePart(String name, Path path) {
+            return addFilePart(name, path, ContentType.APPLICATION_OCTET_STREAM);
+        }
+
+        public Builder addFilePart(String name, Path path, ContentType contentType) {
+            parts.add(new Part(name, null, path, contentType));
+            return this;
+        }
+
+        public Builder setBoundary(String boundary) {
+            this.boundary = boundary;
+            return this;
+        }
+
+        public Builder setEnableCompression(boolean enableCompression) {
+            this.enableCompression = enableCompression;
+            return this;
+        }
+
+        public Builder setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder setProgressListener(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        public StreamingMultipartEntity build() {
+            return new StreamingMultipartEntity(this);
+        }
+    }
+}
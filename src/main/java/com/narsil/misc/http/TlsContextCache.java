@@ -0,0 +1,113 @@
+package com.narsil.misc.http;
+
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * TLS context cache
+ * <p>
+ * SSLContext & SSL socket factory are built once per distinct trust manager & allowed hostname list, then reused.
+ * a shared SSLContext also shares its client session cache, so TLS sessions are resumed (abbreviated handshake)
+ * across connections and engines. the JVM default SSLContext is never touched.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class TlsContextCache {
+
+    private static final Logger LOGGER = Logger.getLogger("TlsContextCache");
+
+    // client session cache setting (for session resumption)
+    private static final int SESSION_CACHE_SIZE = 1000;
+    // unit: second
+    private static final int SESSION_TIMEOUT = 3600;
+
+    private static final Map<List<Object>, SSLConnectionSocketFactory> SOCKET_FACTORIES = new ConcurrentHashMap<>();
+
+    // keyed by trust manager, shared by socket factories & JDK HttpClient
+    private static final Map<List<Object>, SSLContext> SSL_CONTEXTS = new ConcurrentHashMap<>();
+
+    /**
+     * get (or build) SSL socket factory of given trust & hostname setting
+     *
+     * @param trustManager trust manager (null -> JVM default trust store)
+     * @param allowedHostnames allowed host names (null or empty -> all host names are allowed)
+     * @return SSL socket factory
+     */
+    public static SSLConnectionSocketFactory getSocketFactory(X509TrustManager trustManager, List<String> allowedHostnames) {
+
+        Set<String> hostnames = (allowedHostnames != null) ? Set.copyOf(allowedHostnames) : Collections.emptySet();
+        return SOCKET_FACTORIES.computeIfAbsent(Arrays.asList(trustManager, hostnames), k -> build(trustManager, hostnames));
+    }
+
+    /**
+     * get (or build) SSLContext of given trust manager (ex: for JDK HttpClient)
+     *
+     * @param trustManager trust manager (null -> JVM default trust store)
+     * @return SSL context
+     */
+    public static SSLContext getSslContext(X509TrustManager trustManager) {
+        return SSL_CONTEXTS.computeIfAbsent(Collections.singletonList(trustManager), k -> buildSslContext(trustManager));
+    }
+
+    private static SSLConnectionSocketFactory build(X509TrustManager trustManager, Set<String> hostnames) {
+
+        HostnameVerifier hostnameVerifier = (hostname, session) -> {
+
+            // directly pass when allowed hostname list is NOT set
+            boolean isVerified = hostnames.isEmpty() || hostnames.contains(hostname);
+            if (!isVerified) {
+                // shared by every HttpUtils (no enablePrinting here), FINE so a busy client does NOT flood the log
+                LOGGER.fine("{" + hostname + "} is not in allowed hostname list");
+            }
+
+            return isVerified;
+        };
+
+        return new SSLConnectionSocketFactory(getSslContext(trustManager), hostnameVerifier);
+    }
+
+    private static SSLContext buildSslContext(X509TrustManager trustManager) {
+
+        try {
+            SSLContext sslContext = SSLContext.getInstance(SSLConnectionSocketFactory.TLS);
+            TrustManager[] trustManagers = (trustManager != null) ? new TrustManager[] { trustManager } : null;
+            // null SecureRandom -> JSSE default (seeded once per context)
+            sslContext.init(new KeyManager[0], trustManagers, null);
+
+            SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+            sessionContext.setSessionCacheSize(SESSION_CACHE_SIZE);
+            sessionContext.setSessionTimeout(SESSION_TIMEOUT);
+
+            return sslContext;
+
+        } catch (NoSuchAlgorithmException | KeyManagementException e) {
+            throw new IllegalStateException("fail to initialize TLS context", e);
+        }
+    }
+
+    /**
+     * number of cached socket factories
+     *
+     * @return count
+     */
+    public static int size() {
+        return SOCKET_FACTORIES.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.narsil.misc.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * element-by-element iterator over a json array
+ * <p>
+ * only one element is materialized at a time, so memory stays bounded no matter how large the array is.
+ * the reader must be positioned right before the array, and is closed by {@link #close()}.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    private final Gson gson;
+    private final JsonReader reader;
+    private final Type typeOfT;
+
+    private boolean finished = false;
+
+    public JsonArrayIterator(Gson gson, JsonReader reader, Type typeOfT) {
+
+        this.gson = gson;
+        this.reader = reader;
+        this.typeOfT = typeOfT;
+
+        try {
+            reader.beginArray();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        if (finished) {
+            return false;
+        }
+
+        try {
+            if (reader.peek() == JsonToken.END_ARRAY) {
+                reader.endArray();
+                finished = true;
+            }
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+
+        return !finished;
+    }
+
+    @Override
+    public T next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return gson.fromJson(reader, typeOfT);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
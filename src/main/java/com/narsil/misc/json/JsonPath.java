@@ -0,0 +1,297 @@
+package com.narsil.misc.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * simple path to a value inside a json document
+ * <p>
+ * member names separated by dot, array index in brackets, optional leading "$" (ex: "$.data.items", "results[0].rows").
+ * null, "" or "$" is the root. member names containing "." or "[" are NOT supported.
+ * used to seek a streaming reader, select from a tree, or extract several values in one streaming pass.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class JsonPath {
+
+    // unlike JsonParser.parseReader, truncated input is an error (NOT JsonNull)
+    private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    private final String path;
+
+    // String (member name) or Integer (array index)
+    private final List<Object> segments;
+
+    private JsonPath(String path, List<Object> segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    /**
+     * parse path
+     *
+     * @param path path (ex: "data.items", "results[0].rows")
+     * @return json path
+     * @throws IllegalArgumentException malformed path
+     */
+    public static JsonPath compile(String path) {
+
+        String trimmed = (path != null) ? path.trim() : "";
+        if (trimmed.startsWith("$")) {
+            trimmed = trimmed.substring(1);
+        }
+        if (trimmed.startsWith(".")) {
+            trimmed = trimmed.substring(1);
+        }
+
+        List<Object> segments = new ArrayList<>();
+        if (!trimmed.isEmpty()) {
+            for (String part : trimmed.split("\\.", -1)) {
+
+                int bracket = part.indexOf('[');
+                String name = (bracket < 0) ? part : part.substring(0, bracket);
+                if (!name.isEmpty()) {
+                    segments.add(name);
+                } else if (bracket != 0) {
+                    throw new IllegalArgumentException("empty member name in json path: " + path);
+                }
+
+                while (bracket >= 0) {
+                    int close = part.indexOf(']', bracket);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("unclosed bracket in json path: " + path);
+                    }
+                    try {
+                        segments.add(Integer.parseInt(part.substring(bracket + 1, close)));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("invalid array index in json path: " + path);
+                    }
+
+                    bracket = part.indexOf('[', close);
+                    if (bracket < 0 && close != part.length() - 1) {
+                        throw new IllegalArgumentException("unexpected character in json path: " + path);
+                    }
+                }
+            }
+        }
+
+        return new JsonPath(path, Collections.unmodifiableList(segments));
+    }
+
+    /**
+     * move reader forward to the value at this path (everything before it is skipped, NOT materialized)
+     *
+     * @param reader reader positioned before the root value
+     * @throws IOException read failure
+     * @throws JsonParseException path NOT found
+     */
+    public void seek(JsonReader reader) throws IOException {
+
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    throw notFound();
+                }
+                reader.beginObject();
+                while (true) {
+                    if (!reader.hasNext()) {
+                        throw notFound();
+                    }
+                    if (reader.nextName().equals(segment)) {
+                        break;
+                    }
+                    reader.skipValue();
+                }
+            } else {
+                if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    throw notFound();
+                }
+                reader.beginArray();
+                for (int i = 0; i < (Integer) segment; i++) {
+                    if (!reader.hasNext()) {
+                        throw notFound();
+                    }
+                    reader.skipValue();
+                }
+                if (!reader.hasNext()) {
+                    throw notFound();
+                }
+            }
+        }
+    }
+
+    /**
+     * value at this path inside a json tree
+     *
+     * @param root root element
+     * @return value, null if NOT found
+     */
+    public JsonElement select(JsonElement root) {
+        return select(root, 0);
+    }
+
+    private JsonElement select(JsonElement element, int fromSegment) {
+
+        for (int i = fromSegment; i < segments.size() && element != null; i++) {
+            Object segment = segments.get(i);
+            if (segment instanceof String) {
+                element = element.isJsonObject() ? element.getAsJsonObject().get((String) segment) : null;
+            } else {
+                int index = (Integer) segment;
+                element = (element.isJsonArray() && index < element.getAsJsonArray().size())
+                        ? element.getAsJsonArray().get(index)
+                        : null;
+            }
+        }
+        return element;
+    }
+
+    /**
+     * extract values at several paths in one streaming pass, without building the tree of the document
+     * <p>
+     * only the values at the paths are materialized, every other subtree is skipped.
+     * reading stops as soon as every path is found, so the rest of the document is NOT read (nor validated).
+     * first occurrence wins for duplicate member names.
+     *
+     * @param reader reader positioned before the root value
+     * @param paths paths (see {@link #compile(String)})
+     * @return path -> value (order of paths), path NOT found is absent
+     * @throws IOException read failure
+     */
+    public static Map<String, JsonElement> extract(JsonReader reader, String... paths) throws IOException {
+
+        // every path is a branch of one tree, so the document is read once
+        Node root = new Node();
+        List<JsonPath> jsonPaths = new ArrayList<>();
+        for (String path : paths) {
+            JsonPath jsonPath = compile(path);
+            jsonPaths.add(jsonPath);
+
+            Node node = root;
+            for (Object segment : jsonPath.segments) {
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+            }
+            node.targets.add(jsonPath);
+        }
+
+        Map<JsonPath, JsonElement> found = new HashMap<>();
+        if (!jsonPaths.isEmpty()) {
+            scan(reader, root, 0, found, jsonPaths.size());
+        }
+
+        Map<String, JsonElement> result = new LinkedHashMap<>();
+        for (JsonPath jsonPath : jsonPaths) {
+            JsonElement value = found.get(jsonPath);
+            if (value != null) {
+                result.put(jsonPath.path, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of paths still NOT resolved
+     */
+    private static int scan(JsonReader reader, Node node, int depth, Map<JsonPath, JsonElement> found, int remaining) throws IOException {
+
+        // requested value: parse this subtree only, deeper paths are selected from it
+        if (!node.targets.isEmpty()) {
+            JsonElement element = ELEMENT_ADAPTER.read(reader);
+            List<JsonPath> targets = new ArrayList<>();
+            node.collectTargets(targets);
+            for (JsonPath target : targets) {
+                JsonElement value = target.select(element, depth);
+                if (value != null) {
+                    found.put(target, value);
+                }
+            }
+            return remaining - targets.size();
+        }
+
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                Node child = node.children.get(reader.nextName());
+                if (child == null || child.isVisited) {
+                    reader.skipValue();
+                    continue;
+                }
+                child.isVisited = true;
+                remaining = scan(reader, child, depth + 1, found, remaining);
+                if (remaining == 0) {
+                    return 0;
+                }
+            }
+            reader.endObject();
+
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            for (int index = 0; reader.hasNext(); index++) {
+                Node child = node.children.get(index);
+                if (child == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                remaining = scan(reader, child, depth + 1, found, remaining);
+                if (remaining == 0) {
+                    return 0;
+                }
+            }
+            reader.endArray();
+
+        } else {
+            reader.skipValue();
+        }
+
+        return remaining;
+    }
+
+    private JsonParseException notFound() {
+        return new JsonParseException("json path not found: " + path);
+    }
+
+    public List<Object> getSegments() {
+        return segments;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * node of the path tree used by extract
+     */
+    private static class Node {
+
+        // String (member name) or Integer (array index) -> child
+        private final Map<Object, Node> children = new HashMap<>();
+
+        // paths ending here
+        private final List<JsonPath> targets = new ArrayList<>();
+
+        private boolean isVisited = false;
+
+        private void collectTargets(List<JsonPath> result) {
+            result.addAll(targets);
+            for (Node child : children.values()) {
+                child.collectTargets(result);
+            }
+        }
+    }
+}
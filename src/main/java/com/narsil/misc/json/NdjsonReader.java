@@ -0,0 +1,403 @@
+package com.narsil.misc.json;
+
+import com.google.gson.Gson;
+import com.narsil.misc.JsonUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * NDJSON (newline-delimited json, JSON Lines) reader with parallel decoding
+ * <p>
+ * the file is read in large chunks, each cut at its last newline, and the lines of every chunk are decoded
+ * by a task of the pool. at most 2 chunks per pool thread are in flight, so memory stays bounded.
+ * values are delivered to the consumer one at a time, chunk by chunk in file order (ordered) or as chunks complete;
+ * inside a chunk, file order is always kept.
+ * blank lines and "null" lines are skipped, a line which can NOT be decoded is reported to the error handler
+ * and does NOT abort the stream.
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class NdjsonReader<T> {
+
+    private static final Logger LOGGER = Logger.getLogger("NdjsonReader");
+
+    // max length of line kept in LineError
+    private static final int MAX_ERROR_LINE_LENGTH = 256;
+
+    private final Path path;
+    private final Type typeOfT;
+    private final Gson gson;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final boolean isOrdered;
+    private final Consumer<LineError> errorHandler;
+
+    public NdjsonReader(Builder<T> builder) {
+
+        this.path = builder.path;
+        this.typeOfT = builder.typeOfT;
+        this.gson = (builder.gson != null) ? builder.gson : JsonUtils.getGson();
+        this.pool = (builder.pool != null) ? builder.pool : ForkJoinPool.commonPool();
+        this.chunkSize = builder.chunkSize;
+        this.isOrdered = builder.isOrdered;
+        this.errorHandler = (builder.errorHandler != null)
+                ? builder.errorHandler
+                : error -> LOGGER.severe("line " + error.getLineNumber() + ": " + error.getMessage());
+    }
+
+    /**
+     * read every line, and wait until all values are delivered
+     *
+     * @param consumer value consumer (never called concurrently)
+     * @return summary of the file
+     * @throws IOException file can NOT be read
+     */
+    public Summary read(Consumer<? super T> consumer) throws IOException {
+
+        Summary summary = new Summary();
+        long startTime = System.nanoTime();
+
+        int maxInFlight = Math.max(1, pool.getParallelism() * 2);
+
+        // ordered: futures in file order, submitted straight to the pool
+        // unordered: completion queue, so every done chunk is taken (and released) once delivered
+        Deque<Future<Chunk>> pending = new ArrayDeque<>();
+        CompletionService<Chunk> completionService = isOrdered ? null : new ExecutorCompletionService<>(pool);
+        int inFlight = 0;
+
+        try (InputStream in = Files.newInputStream(path)) {
+
+            byte[] carry = new byte[0];
+            long lineNumber = 1L;
+            boolean isEof = false;
+
+            while (!isEof) {
+
+                // carry (partial line of previous chunk) + next chunk
+                byte[] buffer = Arrays.copyOf(carry, carry.length + chunkSize);
+                int read = in.readNBytes(buffer, carry.length, chunkSize);
+                int length = carry.length + read;
+                isEof = read < chunkSize;
+
+                // chunk ends right after its last newline (or at end of file)
+                int chunkLength = isEof ? length : lastNewline(buffer, length) + 1;
+                carry = Arrays.copyOfRange(buffer, chunkLength, length);
+                if (chunkLength == 0) {
+                    // nothing left, or line longer than chunk (keep reading)
+                    continue;
+                }
+
+                Chunk chunk = new Chunk(buffer, chunkLength, lineNumber);
+                lineNumber += countNewlines(buffer, chunkLength);
+
+                // wait for a free slot, delivering what is done
+                if (inFlight == maxInFlight) {
+                    deliver(isOrdered ? pending.poll() : completionService.take(), consumer, summary);
+                    inFlight--;
+                }
+                if (isOrdered) {
+                    pending.add(pool.submit(chunk::decode));
+                } else {
+                    completionService.submit(chunk::decode);
+                }
+                inFlight++;
+            }
+
+            while (inFlight > 0) {
+                deliver(isOrdered ? pending.poll() : completionService.take(), consumer, summary);
+                inFlight--;
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+        }
+
+        summary.elapsed = System.nanoTime() - startTime;
+        return summary;
+    }
+
+    /**
+     * read every line into a list
+     *
+     * @return values (in file order if ordered)
+     * @throws IOException file can NOT be read
+     */
+    public List<T> readAll() throws IOException {
+
+        List<T> values = new ArrayList<>();
+        read(values::add);
+        return values;
+    }
+
+    private void deliver(Future<Chunk> future, Consumer<? super T> consumer, Summary summary) throws InterruptedException {
+
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (ExecutionException e) {
+            // every line is decoded in its own try, so only a bug gets here
+            throw new IllegalStateException(e.getCause());
+        }
+
+        summary.lineCount += chunk.lineCount;
+        summary.errorCount += chunk.errors.size();
+
+        for (LineError error : chunk.errors) {
+            try {
+                errorHandler.accept(error);
+            } catch (RuntimeException e) {
+                LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            }
+        }
+
+        for (T value : chunk.values) {
+            summary.valueCount++;
+            try {
+                consumer.accept(value);
+            } catch (RuntimeException e) {
+                // one bad value must NOT stall the stream
+                LOGGER.severe("[" + e.getClass().getName() + "]:: " + e.getMessage());
+            }
+        }
+    }
+
+    private static int lastNewline(byte[] buffer, int length) {
+
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long countNewlines(byte[] buffer, int length) {
+
+        long count = 0L;
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isOrdered() {
+        return isOrdered;
+    }
+
+    /**
+     * lines of one chunk, decoded by one task
+     */
+    private class Chunk {
+
+        private final byte[] bytes;
+        private final int length;
+        private final long firstLineNumber;
+
+        private final List<T> values = new ArrayList<>();
+        private final List<LineError> errors = new ArrayList<>();
+        private long lineCount = 0L;
+
+        private Chunk(byte[] bytes, int length, long firstLineNumber) {
+            this.bytes = bytes;
+            this.length = length;
+            this.firstLineNumber = firstLineNumber;
+        }
+
+        private Chunk decode() {
+
+            // '\n' never appears inside a multi-byte UTF-8 sequence, so byte offsets are safe
+            int start = 0;
+            while (start < length) {
+                int end = start;
+                while (end < length && bytes[end] != '\n') {
+                    end++;
+                }
+
+                long lineNumber = firstLineNumber + lineCount;
+                lineCount++;
+
+                String line = new String(bytes, start, end - start, StandardCharsets.UTF_8).strip();
+                if (!line.isEmpty()) {
+                    try {
+                        T value = gson.fromJson(line, typeOfT);
+                        if (value != null) {
+                            values.add(value);
+                        }
+                    } catch (RuntimeException e) {
+                        errors.add(new LineError(lineNumber, line, e));
+                    }
+                }
+                start = end + 1;
+            }
+
+            return this;
+        }
+    }
+
+    /**
+     * line which can NOT be decoded
+     */
+    public static class LineError {
+
+        // 1-based
+        private final long lineNumber;
+
+        // truncated if too long
+        private final String line;
+
+        private final Exception exception;
+
+        private LineError(long lineNumber, String line, Exception exception) {
+            this.lineNumber = lineNumber;
+            this.line = (line.length() > MAX_ERROR_LINE_LENGTH) ? line.substring(0, MAX_ERROR_LINE_LENGTH) + "..." : line;
+            this.exception = exception;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+
+        public String getMessage() {
+            return "[" + exception.getClass().getName() + "]:: " + exception.getMessage();
+        }
+    }
+
+    /**
+     * counts of one read
+     */
+    public static class Summary {
+
+        private long lineCount = 0L;
+        private long valueCount = 0L;
+        private long errorCount = 0L;
+
+        // unit: ns
+        private long elapsed = 0L;
+
+        private Summary() {
+        }
+
+        public long getLineCount() {
+            return lineCount;
+        }
+
+        public long getValueCount() {
+            return valueCount;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return "lines=" + lineCount + ", values=" + valueCount + ", errors=" + errorCount
+                    + ", elapsed=" + elapsed / 1_000_000L + " ms";
+        }
+    }
+
+    public static class Builder<T> {
+
+        private Path path;
+        private Type typeOfT;
+
+        // default: shared gson of JsonUtils
+        private Gson gson;
+
+        // default: common pool
+        private ForkJoinPool pool;
+
+        // unit: byte (default: 1 MB)
+        private int chunkSize = 1024 * 1024;
+
+        // deliver values in file order (default) or as chunks complete
+        private boolean isOrdered = true;
+
+        // default: log
+        private Consumer<LineError> errorHandler;
+
+        public Builder() {
+        }
+
+        public Builder<T> setPath(Path path) {
+            this.path = path;
+            return this;
+        }
+
+        public Builder<T> setTypeOfT(Type typeOfT) {
+            this.typeOfT = typeOfT;
+            return this;
+        }
+
+        public Builder<T> setGson(Gson gson) {
+            this.gson = gson;
+            return this;
+        }
+
+        public Builder<T> setPool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        public Builder<T> setChunkSize(int chunkSize) {
+            this.chunkSize = Math.max(1, chunkSize);
+            return this;
+        }
+
+        public Builder<T> setOrdered(boolean isOrdered) {
+            this.isOrdered = isOrdered;
+            return this;
+        }
+
+        public Builder<T> setErrorHandler(Consumer<LineError> errorHandler) {
+            this.errorHandler = errorHandler;
+            return this;
+        }
+
+        public NdjsonReader<T> build() {
+            return new NdjsonReader<>(this);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.narsil.misc.json;
+
+import com.google.gson.Gson;
+import com.narsil.misc.JsonUtils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * NDJSON (newline-delimited json, JSON Lines) writer
+ * <p>
+ * values are serialized straight into a large UTF-8 buffer (without intermediate json string),
+ * one per line, and written to the file when the buffer is full, so a write call is rarely a system call.
+ * <p>
+ * NOTE: gson with pretty printing would break lines, do NOT use it here
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class NdjsonWriter<T> implements Closeable, Flushable {
+
+    private final Type typeOfT;
+    private final Gson gson;
+    private final Writer writer;
+
+    private long count = 0L;
+
+    public NdjsonWriter(Builder<T> builder) throws IOException {
+
+        this.typeOfT = builder.typeOfT;
+        this.gson = (builder.gson != null) ? builder.gson : JsonUtils.getGson();
+
+        OpenOption[] options = builder.isAppend
+                ? new OpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND}
+                : new OpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING};
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(builder.path, options), StandardCharsets.UTF_8),
+                builder.bufferSize);
+    }
+
+    /**
+     * write one value as a line
+     *
+     * @param value value
+     * @throws IOException write failure
+     */
+    public void write(T value) throws IOException {
+
+        gson.toJson(value, typeOfT, writer);
+        writer.write('\n');
+        count++;
+    }
+
+    /**
+     * write every value, one per line
+     *
+     * @param values values
+     * @throws IOException write failure
+     */
+    public void writeAll(Iterable<? extends T> values) throws IOException {
+        for (T value : values) {
+            write(value);
+        }
+    }
+
+    /**
+     * write every value, one per line
+     *
+     * @param values values (consumed lazily)
+     * @throws IOException write failure
+     */
+    public void writeAll(Stream<? extends T> values) throws IOException {
+        Iterator<? extends T> iterator = values.iterator();
+        while (iterator.hasNext()) {
+            write(iterator.next());
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    public static class Builder<T> {
+
+        private Path path;
+        private Type typeOfT;
+
+        // default: shared gson of JsonUtils
+        private Gson gson;
+
+        // unit: char (default: 256 KB)
+        private int bufferSize = 256 * 1024;
+
+        // append to existing file (default: truncate)
+        private boolean isAppend = false;
+
+        public Builder() {
+        }
+
+        public Builder<T> setPath(Path path) {
+            this.path = path;
+            return this;
+        }
+
+        public Builder<T> setTypeOfT(Type typeOfT) {
+            this.typeOfT = typeOfT;
+            return this;
+        }
+
+        public Builder<T> setGson(Gson gson) {
+            this.gson = gson;
+            return this;
+        }
+
+        public Builder<T> setBufferSize(int bufferSize) {
+            this.bufferSize = Math.max(1, bufferSize);
+            return this;
+        }
+
+        public Builder<T> setAppend(boolean isAppend) {
+            this.isAppend = isAppend;
+            return this;
+        }
+
+        public NdjsonWriter<T> build() throws IOException {
+            return new NdjsonWriter<>(this);
+        }
+    }
+}
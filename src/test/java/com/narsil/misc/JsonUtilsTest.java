@@ -4,21 +4,32 @@ import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.FieldNamingStrategy;
+import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.narsil.misc.json.JsonArrayIterator;
+import com.narsil.misc.json.JsonPath;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
 import java.io.File;
+import java.io.StringReader;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
@@ -424,6 +435,156 @@ public class JsonUtilsTest {
         }
     }
 
+    @Test
+    public void test17_readerToVo() {
+
+        SampleTemplate vo = JsonUtils.readerToVo(new StringReader(jsonString), typeOfT);
+        assert vo != null;
+        LOGGER.info(vo.toJson());
+        assertEquals(jsonString, vo.toJson());
+    }
+
+    @Test
+    public void test18_readerToIterator() throws Exception {
+
+        String jsonArray = "[" + jsonString + "," + jsonString + "," + jsonString + "]";
+
+        int count = 0;
+        try (JsonArrayIterator<SampleTemplate> iterator = JsonUtils.readerToIterator(new StringReader(jsonArray), typeOfT)) {
+            while (iterator.hasNext()) {
+                assertEquals(jsonString, iterator.next().toJson());
+                count++;
+            }
+        }
+
+        LOGGER.info("element count = " + count);
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void test19_getGson() {
+
+        // same strategy -> same (warm) gson
+        assertSame(JsonUtils.getGson(), JsonUtils.getGson(null, null));
+        assertSame(JsonUtils.getGson(fnPolicy, null), JsonUtils.getGson(fnPolicy, null));
+        assertSame(JsonUtils.getGson(fnPolicy, exStrategy), JsonUtils.getGson(fnPolicy, exStrategy));
+        assertNotSame(JsonUtils.getGson(fnPolicy, null), JsonUtils.getGson(fnPolicy, exStrategy));
+
+        assertEquals(jsonStringE, JsonUtils.voToJs(vo, typeOfT, JsonUtils.getGson(fnPolicy, exStrategy)));
+    }
+
+    @Test
+    public void test20_preconfiguredGson() {
+
+        Gson gson = JsonUtils.newGsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.UPPER_CASE_WITH_UNDERSCORES)
+                .create();
+
+        String jsonString = JsonUtils.voToJs(vo, typeOfT, gson);
+        LOGGER.info(jsonString);
+        assertEquals(jsonStringB, jsonString);
+
+        SampleTemplate result = JsonUtils.jsToVo(jsonString, typeOfT, gson);
+        assertNotNull(result);
+        assertEquals(this.jsonString, result.toJson());
+
+        result = JsonUtils.jeToVo(JsonUtils.voToJe(vo, typeOfT, gson), typeOfT, gson);
+        assertNotNull(result);
+        assertEquals(this.jsonString, result.toJson());
+
+        result = JsonUtils.readerToVo(new StringReader(jsonString), typeOfT, gson);
+        assertNotNull(result);
+        assertEquals(this.jsonString, result.toJson());
+    }
+
+    @Test
+    public void test21_nestedMapRoundTrip() {
+
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("id", 7);
+        nested.put("tags", List.of("a", "b"));
+        nested.put("child", Map.of("alphaCode", 1));
+
+        // numbers come back as double, same as through json string
+        Map<String, Object> result = JsonUtils.voToMap(nested, Map.class);
+        assertEquals(JsonUtils.jsToMap(JsonUtils.voToJs(nested, Map.class)), result);
+        assertEquals(7.0, result.get("id"));
+        assertEquals(List.of("a", "b"), result.get("tags"));
+
+        SampleTemplate vo = JsonUtils.mapToVo(Map.of("alphaCode", 3, "betaMessage", "m"), typeOfT);
+        assertNotNull(vo);
+        assertEquals(3, vo.getAlphaCode());
+        assertEquals("m", vo.getBetaMessage());
+    }
+
+    @Test
+    public void test22_fileToIterator() throws Exception {
+
+        File largeFile = File.createTempFile("json-utils-", ".json");
+        largeFile.deleteOnExit();
+
+        // non ascii message: file is read as UTF-8 whatever the platform charset is
+        try (Writer writer = Files.newBufferedWriter(largeFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("{\"meta\":{\"skip\":[1,[2,3],{\"items\":[]}]},\"data\":{\"items\":[");
+            for (int i = 0; i < 10000; i++) {
+                writer.write((i > 0 ? "," : "") + new SampleTemplate(i, "메시지-ü", null).toJson());
+            }
+            writer.write("]}}");
+        }
+
+        int count = 0;
+        try (JsonArrayIterator<SampleTemplate> iterator = JsonUtils.fileToIterator(largeFile, "$.data.items", typeOfT)) {
+            while (iterator.hasNext()) {
+                SampleTemplate element = iterator.next();
+                assertEquals(count++, element.getAlphaCode());
+                assertEquals("메시지-ü", element.getBetaMessage());
+            }
+        }
+        assertEquals(10000, count);
+
+        try (Stream<Double> stream = JsonUtils.fileToStream(largeFile, "meta.skip[1]", Double.class)) {
+            assertEquals(5.0, stream.mapToDouble(Double::doubleValue).sum(), 0.0);
+        }
+
+        assertThrows(JsonParseException.class, () -> JsonUtils.fileToIterator(largeFile, "data.missing", typeOfT));
+        assertThrows(JsonParseException.class, () -> JsonUtils.fileToIterator(largeFile, "meta", typeOfT));
+        assertThrows(JsonParseException.class, () -> JsonUtils.fileToIterator(largeFile, null, typeOfT));
+    }
+
+    @Test
+    public void test23_extract() {
+
+        String payload = "{\"meta\":{\"trace\":[1,2,{\"route\":\"decoy\"}]},"
+                + "\"route\":{\"target\":\"svc-a\",\"weight\":0.5},"
+                + "\"items\":[{\"id\":10},{\"id\":11,\"tags\":[\"x\",\"y\"]}],"
+                + "\"route\":{\"target\":\"duplicate\"}}";
+
+        Map<String, JsonElement> values = JsonUtils.extract(payload,
+                "route.target", "items[1].id", "items[1]", "items[1].tags[1]", "missing.key", "items[5]");
+        LOGGER.info(String.valueOf(values));
+
+        assertNotNull(values);
+        assertEquals(4, values.size());
+        assertEquals("svc-a", values.get("route.target").getAsString());
+        assertEquals(11, values.get("items[1].id").getAsInt());
+        assertEquals("y", values.get("items[1].tags[1]").getAsString());
+        assertFalse(values.containsKey("missing.key"));
+
+        // same result as full tree
+        JsonElement tree = JsonUtils.jsToJe(payload);
+        assertEquals(tree.getAsJsonObject().get("items").getAsJsonArray().get(1), values.get("items[1]"));
+        assertEquals(JsonPath.compile("items[1].tags[1]").select(tree), values.get("items[1].tags[1]"));
+
+        // stops once every path is found: broken tail is never read
+        values = JsonUtils.extract("{\"a\":{\"b\":1},\"c\":[true], \"broken\": ", "c[0]", "a.b");
+        assertNotNull(values);
+        assertEquals(List.of("c[0]", "a.b"), List.copyOf(values.keySet()));
+        assertTrue(values.get("c[0]").getAsBoolean());
+
+        // malformed before all paths are found
+        assertNull(JsonUtils.extract("{\"a\": ", "a"));
+    }
+
     private static class SampleTemplate {
 
         private int alphaCode = -1;
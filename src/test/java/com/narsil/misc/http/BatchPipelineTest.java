@@ -0,0 +1,180 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class BatchPipelineTest {
+
+    private static final Logger LOGGER = Logger.getLogger("BatchPipelineTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private HttpUtils httpUtils;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void init() throws Exception {
+
+        server.setExecutor(Executors.newCachedThreadPool());
+
+        // echo request body after random delay, track concurrency
+        server.createContext("/echo", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+                exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.createContext("/header", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = String.join(",", exchange.getRequestHeaders().get("X-Tenant")).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/fail", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+
+        httpUtils = new HttpUtils.Builder()
+                .setUrl(server.getBaseUrl() + "/echo")
+                .setEnablePrinting(false)
+                .build();
+    }
+
+    @Test
+    public void test00_ordered() {
+
+        BatchPipeline pipeline = new BatchPipeline.Builder().setHttpUtils(httpUtils).setMaxConcurrency(8).build();
+
+        List<BatchRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            requests.add(BatchRequest.postJson(null, "{\"id\":" + i + "}"));
+        }
+
+        List<BatchPipeline.Response> responses = new ArrayList<>();
+        BatchPipeline.Summary summary = pipeline.execute(requests, responses::add);
+        LOGGER.info(summary.toString());
+
+        assertEquals(500, responses.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, responses.get(i).getIndex());
+            assertEquals("{\"id\":" + i + "}", responses.get(i).getContent());
+        }
+        assertEquals(500, summary.getSuccessCount());
+        assertEquals(500, summary.getLatency().getCount());
+        assertTrue(maxInFlight.get() <= 8);
+    }
+
+    @Test
+    public void test01_unorderedWithFailure() {
+
+        BatchPipeline pipeline = new BatchPipeline.Builder().setHttpUtils(httpUtils).setMaxConcurrency(4).setOrdered(false).build();
+        String failUrl = httpUtils.getUrl().replace("/echo", "/fail");
+
+        List<BatchRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(i % 10 == 0 ? BatchRequest.get(failUrl) : new BatchRequest.Builder().setText("t" + i).setTag(i).build());
+        }
+
+        List<BatchPipeline.Response> responses = pipeline.executeAll(requests);
+
+        assertEquals(100, responses.size());
+        for (int i = 0; i < 100; i++) {
+            BatchPipeline.Response response = responses.get(i);
+            assertEquals(i, response.getIndex());
+            assertEquals(i % 10 == 0 ? 500 : 200, response.getStatusCode());
+        }
+
+        BatchPipeline.Summary summary = pipeline.execute(requests, response -> {});
+        assertEquals(10, summary.getFailureCount());
+        assertEquals(10L, (long) summary.getStatusCounts().get(500));
+    }
+
+    @Test
+    public void test02_backpressure() {
+
+        BatchPipeline pipeline = new BatchPipeline.Builder().setHttpUtils(httpUtils).setMaxConcurrency(8).build();
+
+        // lazy source: pulled only when a slot is free
+        AtomicLong pulled = new AtomicLong();
+        AtomicLong delivered = new AtomicLong();
+        AtomicLong maxAhead = new AtomicLong();
+        Stream<BatchRequest> source = IntStream.range(0, 300).mapToObj(i -> {
+            maxAhead.accumulateAndGet(pulled.incrementAndGet() - delivered.get(), Math::max);
+            return BatchRequest.postJson(null, String.valueOf(i));
+        });
+
+        BatchPipeline.Summary summary = pipeline.execute(source, response -> delivered.incrementAndGet());
+
+        assertEquals(300, summary.getCount());
+        assertEquals(300, delivered.get());
+        assertTrue("ahead = " + maxAhead.get(), maxAhead.get() <= 8);
+    }
+
+    @Test
+    public void test03_consumerFailure() {
+
+        BatchPipeline pipeline = new BatchPipeline.Builder().setHttpUtils(httpUtils).setMaxConcurrency(2).build();
+
+        List<BatchRequest> requests = List.of(BatchRequest.postJson(null, "1"), BatchRequest.postJson(null, "2"), BatchRequest.postJson(null, "3"));
+        AtomicInteger count = new AtomicInteger();
+
+        // a throwing consumer does not stall the batch
+        BatchPipeline.Summary summary = pipeline.execute(requests, response -> {
+            count.incrementAndGet();
+            throw new IllegalStateException("bad consumer");
+        });
+
+        assertEquals(3, count.get());
+        assertEquals(3, summary.getSuccessCount());
+    }
+
+    @Test
+    public void test04_headerOverride() {
+
+        String url = server.getBaseUrl() + "/header";
+        HttpUtils tenantA = new HttpUtils.Builder().setUrl(url).setHeader(Map.of("X-Tenant", "a")).setEnablePrinting(false).build();
+
+        // header of the spec replaces the one of the instance, NOT sent twice
+        BatchRequest request = new BatchRequest.Builder().setHeader(Map.of("x-tenant", "b")).build();
+        assertEquals("b", tenantA.send(request).getB());
+
+        assertEquals("a", tenantA.send(BatchRequest.get(null)).getB());
+    }
+}
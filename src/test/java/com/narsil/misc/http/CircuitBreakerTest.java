@@ -0,0 +1,178 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CircuitBreakerTest {
+
+    private static final Logger LOGGER = Logger.getLogger("CircuitBreakerTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch arrived = new CountDownLatch(1);
+
+    @Before
+    public void init() throws Exception {
+
+        server.createContext("/slow", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            arrived.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        baseUrl = server.getBaseUrl();
+    }
+
+    @After
+    public void destroy() {
+        release.countDown();
+    }
+
+    @Test
+    public void test00_failFast() {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker.Builder().setFailureThreshold(3).build();
+
+        server.stop();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/slow").setCircuitBreaker(circuitBreaker).setEnablePrinting(false).build();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) httpUtils.get().getA());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState("127.0.0.1"));
+
+        // no connection attempt from now on
+        assertEquals(HttpUtils.STATUS_CODE_CIRCUIT_OPEN, (int) httpUtils.get().getA());
+        assertEquals(1, circuitBreaker.getOpenRejectedCount());
+        assertFalse(httpUtils.isSuccessful());
+    }
+
+    @Test
+    public void test01_halfOpen() throws Exception {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker.Builder().setFailureThreshold(2).setOpenDuration(100L).build();
+        String host = "example.com";
+
+        for (int i = 0; i < 2; i++) {
+            CircuitBreaker.Permit permit = circuitBreaker.tryAcquire(host);
+            assertTrue(permit.isPermitted());
+            circuitBreaker.release(permit, 503);
+        }
+        assertEquals(HttpUtils.STATUS_CODE_CIRCUIT_OPEN, circuitBreaker.tryAcquire(host).getRejection());
+
+        Thread.sleep(150L);
+
+        // one trial call only
+        CircuitBreaker.Permit trial = circuitBreaker.tryAcquire(host);
+        assertTrue(trial.isPermitted());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(host));
+        assertEquals(HttpUtils.STATUS_CODE_CIRCUIT_OPEN, circuitBreaker.tryAcquire(host).getRejection());
+
+        // trial fails -> open again
+        circuitBreaker.release(trial, HttpUtils.STATUS_CODE_CONNECTION_TIMEOUT);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(host));
+
+        Thread.sleep(150L);
+
+        // trial succeeds -> closed
+        trial = circuitBreaker.tryAcquire(host);
+        assertTrue(trial.isPermitted());
+        circuitBreaker.release(trial, 200);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(host));
+
+        // 4XX is NOT a failure of host
+        for (int i = 0; i < 5; i++) {
+            CircuitBreaker.Permit permit = circuitBreaker.tryAcquire(host);
+            assertTrue(permit.isPermitted());
+            circuitBreaker.release(permit, 404);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(host));
+    }
+
+    @Test
+    public void test02_lateOutcome() throws Exception {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker.Builder().setFailureThreshold(2).setOpenDuration(100L).build();
+        String host = "example.com";
+
+        // slow calls started while closed
+        CircuitBreaker.Permit lateSuccess = circuitBreaker.tryAcquire(host);
+        CircuitBreaker.Permit lateFailure = circuitBreaker.tryAcquire(host);
+
+        for (int i = 0; i < 2; i++) {
+            circuitBreaker.release(circuitBreaker.tryAcquire(host), 503);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(host));
+
+        // success of a call admitted before the trip does NOT close the circuit
+        circuitBreaker.release(lateSuccess, 200);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(host));
+        assertEquals(HttpUtils.STATUS_CODE_CIRCUIT_OPEN, circuitBreaker.tryAcquire(host).getRejection());
+
+        Thread.sleep(150L);
+
+        // failure of a non-trial call does NOT reopen the circuit
+        CircuitBreaker.Permit trial = circuitBreaker.tryAcquire(host);
+        assertTrue(trial.isPermitted());
+        circuitBreaker.release(lateFailure, 503);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(host));
+
+        circuitBreaker.release(trial, 200);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(host));
+
+        // released once only
+        circuitBreaker.release(trial, 503);
+        circuitBreaker.release(circuitBreaker.tryAcquire(host), 503);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(host));
+    }
+
+    @Test
+    public void test03_bulkhead() throws Exception {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker.Builder().setMaxConcurrentCalls(1).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/slow").setCircuitBreaker(circuitBreaker).setEnablePrinting(false).build();
+
+        CompletableFuture<Tuple.Pair<Integer, String>> future = httpUtils.getAsync();
+        arrived.await();
+
+        // the only slot is taken by the slow call
+        assertEquals(HttpUtils.STATUS_CODE_BULKHEAD_FULL, (int) httpUtils.get().getA());
+
+        release.countDown();
+        assertEquals(200, (int) future.get().getA());
+
+        LOGGER.info("bulkhead rejected = " + circuitBreaker.getBulkheadRejectedCount());
+        assertEquals(1, circuitBreaker.getBulkheadRejectedCount());
+        assertEquals(1, circuitBreaker.getAvailableConcurrentCalls("127.0.0.1"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import com.narsil.misc.ZipUtils;
+import org.apache.http.entity.StringEntity;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ContentCompressionTest {
+
+    private static final Logger LOGGER = Logger.getLogger("ContentCompressionTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+    private String json;
+
+    private final AtomicReference<String> receivedEncoding = new AtomicReference<>();
+    private final AtomicReference<String> receivedAcceptEncoding = new AtomicReference<>();
+    private final AtomicInteger receivedLength = new AtomicInteger();
+
+    @Before
+    public void init() throws Exception {
+
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            sb.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"item-").append(i).append("\"}");
+        }
+        json = sb.append("]").toString();
+
+        // echo request body (decoded), gzip response when client accepts it
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            receivedLength.set(body.length);
+            receivedEncoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            receivedAcceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+
+            if ("gzip".equals(receivedEncoding.get())) {
+                try (InputStream is = ZipUtils.gzipUncompress(new ByteArrayInputStream(body), 512)) {
+                    body = is.readAllBytes();
+                }
+            }
+
+            String acceptEncoding = receivedAcceptEncoding.get();
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                body = ZipUtils.gzipCompress(body);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        baseUrl = server.getBaseUrl();
+    }
+
+    @Test
+    public void test00_gzipRoundTrip() throws Exception {
+
+        byte[] input = json.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = ZipUtils.gzipCompress(input);
+        LOGGER.info("json = " + input.length + " bytes, gzip = " + compressed.length + " bytes");
+
+        assertTrue(compressed.length < input.length / 5);
+        try (InputStream is = ZipUtils.gzipUncompress(new ByteArrayInputStream(compressed), 1024)) {
+            assertArrayEquals(input, is.readAllBytes());
+        }
+    }
+
+    @Test
+    public void test01_requestCompression() {
+
+        HttpUtils httpUtils = new HttpUtils.Builder()
+                .setUrl(baseUrl + "/echo")
+                .setEnablePrinting(false)
+                .setRequestCompressionThreshold(1024)
+                .build();
+
+        Tuple.Pair<Integer, String> response = httpUtils.postJson(json);
+
+        assertEquals(200, (int) response.getA());
+        assertEquals(json, response.getB());
+        assertEquals("gzip", receivedEncoding.get());
+        assertTrue(receivedLength.get() < json.length() / 5);
+    }
+
+    @Test
+    public void test02_belowThreshold() {
+
+        HttpUtils httpUtils = new HttpUtils.Builder()
+                .setUrl(baseUrl + "/echo")
+                .setEnablePrinting(false)
+                .setRequestCompressionThreshold(1024)
+                .build();
+
+        assertEquals("{\"id\":1}", httpUtils.postJson("{\"id\":1}").getB());
+        assertNull(receivedEncoding.get());
+
+        // disabled by default
+        HttpUtils plain = new HttpUtils.Builder().setUrl(baseUrl + "/echo").setEnablePrinting(false).build();
+        assertEquals(json, plain.postJson(json).getB());
+        assertNull(receivedEncoding.get());
+        assertEquals(json.length(), receivedLength.get());
+    }
+
+    @Test
+    public void test03_streamingResponse() throws Exception {
+
+        HttpUtils httpUtils = new HttpUtils.Builder()
+                .setUrl(baseUrl + "/echo")
+                .setEnablePrinting(false)
+                .setDecompressionBufferSize(4096)
+                .build();
+
+        assertEquals(4096, httpUtils.getEngine().getDecompressionBufferSize());
+
+        // body is inflated while being read
+        Tuple.Pair<Integer, InputStream> response = httpUtils.post(
+                new StringEntity(json, StandardCharsets.UTF_8), null, ResponseBodyHandlers.ofInputStream());
+        assertEquals(200, (int) response.getA());
+        assertTrue(receivedAcceptEncoding.get().contains("gzip"));
+        try (InputStream is = response.getB()) {
+            assertEquals(json, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
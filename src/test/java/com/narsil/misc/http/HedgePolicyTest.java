@@ -0,0 +1,182 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HedgePolicyTest {
+
+    private static final Logger LOGGER = Logger.getLogger("HedgePolicyTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+    private final AtomicInteger hitCount = new AtomicInteger();
+
+    @Before
+    public void init() throws Exception {
+
+        // first call is stuck on a slow connection, the others are fast
+        server.createContext("/first-slow", exchange -> respond(exchange, hitCount.incrementAndGet() == 1 ? 3000L : 0L, "hit-" + hitCount.get()));
+        server.createContext("/slow", exchange -> respond(exchange, 3000L, "slow"));
+        server.createContext("/fast", exchange -> respond(exchange, 0L, "fast"));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        baseUrl = server.getBaseUrl();
+    }
+
+    private static void respond(HttpExchange exchange, long delay, String body) throws IOException {
+
+        exchange.getRequestBody().readAllBytes();
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @Test
+    public void test00_hedge() {
+
+        HedgePolicy hedgePolicy = new HedgePolicy.Builder().setInitialDelay(50L).setMaxHedgeRatio(1.0).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/first-slow").setHedgePolicy(hedgePolicy).setEnablePrinting(false).build();
+
+        long start = System.nanoTime();
+        Tuple.Pair<Integer, String> response = httpUtils.get();
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+
+        LOGGER.info("elapsed = " + elapsed + " ms, response = " + response.getB());
+        assertEquals(200, (int) response.getA());
+        assertEquals("hit-2", response.getB());
+        assertTrue(elapsed < 2000L);
+        assertEquals(1, hedgePolicy.getHedgeCount());
+        assertEquals(1, hedgePolicy.getHedgeWinCount());
+        assertTrue(httpUtils.isSuccessful());
+    }
+
+    @Test
+    public void test01_noHedgeWhenFast() {
+
+        HedgePolicy hedgePolicy = new HedgePolicy.Builder().setInitialDelay(1000L).setMaxHedgeRatio(1.0).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/fast").setHedgePolicy(hedgePolicy).setEnablePrinting(false).build();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("fast", httpUtils.get().getB());
+        }
+
+        assertEquals(5, hedgePolicy.getRequestCount());
+        assertEquals(0, hedgePolicy.getHedgeCount());
+        assertEquals(0.0, hedgePolicy.getHedgeRate(), 0.0);
+    }
+
+    @Test
+    public void test02_alternateUrl() {
+
+        HedgePolicy hedgePolicy = new HedgePolicy.Builder().setInitialDelay(50L).setMaxHedgeRatio(1.0).build();
+        HttpUtils httpUtils = new HttpUtils.Builder()
+                .setUrl(baseUrl + "/slow")
+                .setHedgeUrl(baseUrl + "/fast")
+                .setHedgePolicy(hedgePolicy)
+                .setEnablePrinting(false)
+                .build();
+
+        assertEquals("fast", httpUtils.get().getB());
+        assertEquals(1, hedgePolicy.getHedgeWinCount());
+    }
+
+    @Test
+    public void test03_hedgeRatio() {
+
+        // 1 request -> 0.5 hedge allowed -> no hedge
+        HedgePolicy hedgePolicy = new HedgePolicy.Builder().setInitialDelay(50L).setMaxHedgeRatio(0.5).build();
+        HttpUtils httpUtils = new HttpUtils.Builder()
+                .setUrl(baseUrl + "/slow")
+                .setHedgeUrl(baseUrl + "/fast")
+                .setHedgePolicy(hedgePolicy)
+                .setEnablePrinting(false)
+                .build();
+
+        assertEquals("slow", httpUtils.get().getB());
+        assertEquals(0, hedgePolicy.getHedgeCount());
+    }
+
+    @Test
+    public void test04_percentileDelay() {
+
+        HedgePolicy hedgePolicy = new HedgePolicy.Builder().setPercentile(0.9).setMinSamples(64).setMinDelay(1L).build();
+        assertEquals(100L, hedgePolicy.getDelay());
+
+        for (int i = 1; i <= 128; i++) {
+            hedgePolicy.onResponse(false, i);
+        }
+
+        LOGGER.info("delay = " + hedgePolicy.getDelay() + " ms");
+        assertEquals(116L, hedgePolicy.getDelay());
+    }
+
+    @Test
+    public void test05_concurrentBudget() throws Exception {
+
+        // 100 requests -> 10 hedges allowed
+        HedgePolicy hedgePolicy = new HedgePolicy.Builder().setMaxHedgeRatio(0.1).build();
+        for (int i = 0; i < 100; i++) {
+            hedgePolicy.onRequest();
+        }
+
+        // many threads race for the budget, it is never exceeded
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    hedgePolicy.onResponse(false, i);
+                    if (hedgePolicy.tryHedge()) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(10, granted.get());
+        assertEquals(10, hedgePolicy.getHedgeCount());
+    }
+}
@@ -0,0 +1,263 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import com.narsil.misc.ZipUtils;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class Http2EngineTest {
+
+    private static final Logger LOGGER = Logger.getLogger("Http2EngineTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+
+    private final AtomicReference<String> receivedTransferEncoding = new AtomicReference<>();
+    private final AtomicInteger receivedLength = new AtomicInteger();
+    private final AtomicInteger unavailableCount = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void init() throws Exception {
+
+        server.setExecutor(Executors.newCachedThreadPool());
+
+        // echo request body
+        server.createContext("/echo", exchange -> {
+            receivedTransferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            receivedLength.set(body.length);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+
+        // gzip response
+        server.createContext("/gzip", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = ZipUtils.gzipCompress("compressed".repeat(1000).getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+
+        // 503 twice, then 200
+        server.createContext("/flaky", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            int status = unavailableCount.incrementAndGet() <= 2 ? 503 : 200;
+            exchange.sendResponseHeaders(status, 2);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("ok".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        // never answers until released
+        server.createContext("/hang", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+
+        server.start();
+        baseUrl = server.getBaseUrl();
+    }
+
+    @After
+    public void destroy() {
+        release.countDown();
+    }
+
+    private HttpUtils http2(String path) {
+        return new HttpUtils.Builder().setUrl(baseUrl + path).setEnableHttp2(true).setEnablePrinting(false).build();
+    }
+
+    @Test
+    public void test00_getAndPost() {
+
+        HttpUtils httpUtils = http2("/echo");
+        assertNotNull(httpUtils.getHttp2Engine());
+        assertEquals(HttpClient.Version.HTTP_2, httpUtils.getHttp2Engine().getVersion());
+
+        // same setting -> same engine
+        assertSame(httpUtils.getHttp2Engine(), http2("/gzip").getHttp2Engine());
+
+        Tuple.Pair<Integer, String> response = httpUtils.postJson("{\"id\":1}");
+        assertEquals(200, (int) response.getA());
+        assertEquals("{\"id\":1}", response.getB());
+        assertTrue(httpUtils.isSuccessful());
+
+        assertEquals(200, (int) httpUtils.get().getA());
+    }
+
+    @Test
+    public void test01_gzipResponse() {
+
+        Tuple.Pair<Integer, String> response = http2("/gzip").get();
+        assertEquals(200, (int) response.getA());
+        assertEquals("compressed".repeat(1000), response.getB());
+    }
+
+    @Test
+    public void test02_streamingUpload() throws Exception {
+
+        Path file = Files.createTempFile("http2-upload", ".bin");
+        try {
+            Files.write(file, new byte[2 * 1024 * 1024]);
+            StreamingMultipartEntity entity = new StreamingMultipartEntity.Builder().addFilePart("file", file).build();
+
+            assertEquals(200, (int) http2("/echo").postMultipart(entity).getA());
+            assertEquals("chunked", receivedTransferEncoding.get());
+            assertTrue(receivedLength.get() > 2 * 1024 * 1024);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void test03_statusMapping() throws Exception {
+
+        // connection refused
+        HttpUtils refused = new HttpUtils.Builder().setUrl(LocalHttpServer.deadUrl() + "/echo")
+                .setEnableHttp2(true).setEnablePrinting(false).build();
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) refused.get().getA());
+
+        // retry policy works the same
+        HttpUtils flaky = new HttpUtils.Builder().setUrl(baseUrl + "/flaky").setEnableHttp2(true).setEnablePrinting(false)
+                .setRetryPolicy(new RetryPolicy.Builder().setBaseDelay(10).build())
+                .build();
+        assertEquals(200, (int) flaky.get().getA());
+        assertEquals(3, unavailableCount.get());
+    }
+
+    @Test
+    public void test04_abortAndAsync() throws Exception {
+
+        HttpUtils hang = http2("/hang");
+        CompletableFuture<Tuple.Pair<Integer, String>> future = hang.getAsync();
+
+        Thread.sleep(300);
+        long start = System.currentTimeMillis();
+        hang.abort();
+
+        Tuple.Pair<Integer, String> response = future.get(5, TimeUnit.SECONDS);
+        LOGGER.info("aborted in " + (System.currentTimeMillis() - start) + " ms");
+        assertEquals(HttpUtils.STATUS_CODE_UNKNOWN, (int) response.getA());
+
+        // many concurrent calls share the engine
+        List<CompletableFuture<Tuple.Pair<Integer, String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(http2("/echo").postTextAsync("call " + i));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals("call " + i, futures.get(i).get(5, TimeUnit.SECONDS).getB());
+        }
+    }
+
+    @Test
+    public void test05_failedUpload() throws Exception {
+
+        // streamed body whose writer fails halfway
+        AbstractHttpEntity entity = new AbstractHttpEntity() {
+            @Override
+            public boolean isRepeatable() {
+                return false;
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1L;
+            }
+
+            @Override
+            public InputStream getContent() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void writeTo(OutputStream os) throws IOException {
+                os.write(new byte[4096]);
+                throw new IOException("source is gone");
+            }
+
+            @Override
+            public boolean isStreaming() {
+                return true;
+            }
+        };
+        entity.setChunked(true);
+
+        HttpPost post = new HttpPost(baseUrl + "/echo");
+        post.setEntity(entity);
+
+        // request fails, NOT sent as a complete (truncated) body
+        assertThrows(IOException.class, () -> http2("/echo").getHttp2Engine().execute(post).close());
+        assertNotEquals(4096, receivedLength.get());
+    }
+
+    @Test
+    public void test06_boundedThreads() throws Exception {
+
+        try (Http2Engine engine = new Http2Engine.Builder().setMaxThreads(2).build()) {
+
+            assertEquals(2, engine.getMaxThreads());
+            HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/echo")
+                    .setHttp2Engine(engine).setEnablePrinting(false).build();
+
+            // more calls than threads are queued, NOT rejected
+            List<CompletableFuture<Tuple.Pair<Integer, String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(httpUtils.postTextAsync("call " + i));
+            }
+            for (int i = 0; i < 20; i++) {
+                assertEquals("call " + i, futures.get(i).get(5, TimeUnit.SECONDS).getB());
+            }
+
+            // streamed body is written by its own thread, NOT by the bounded pool
+            Path file = Files.createTempFile("http2-upload", ".bin");
+            try {
+                Files.write(file, new byte[2 * 1024 * 1024]);
+                StreamingMultipartEntity entity = new StreamingMultipartEntity.Builder().addFilePart("file", file).build();
+                assertEquals(200, (int) httpUtils.postMultipart(entity).getA());
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HttpEngineTest {
+
+    private static final Logger LOGGER = Logger.getLogger("HttpEngineTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String url;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void init() throws Exception {
+
+        server.createContext("/hello", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] bytes = "{\"hello\":\"world\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        url = server.getBaseUrl() + "/hello";
+    }
+
+    @Test
+    public void test00_shared() {
+
+        HttpUtils a = new HttpUtils.Builder().setUrl(url).setEnablePrinting(false).build();
+        HttpUtils b = new HttpUtils.Builder().setUrl(url).setEnablePrinting(false).build();
+        HttpUtils c = new HttpUtils.Builder().setUrl(url).setMaxRetryTimes(3).setEnablePrinting(false).build();
+
+        // identical connection-level setting -> same engine
+        assertSame(a.getEngine(), b.getEngine());
+        assertNotSame(a.getEngine(), c.getEngine());
+
+        // allowed hostname list changed by caller does NOT change the shared engine
+        List<String> hostnames = new ArrayList<>(List.of("a.example.com"));
+        HttpEngine engine = HttpEngine.shared(new HttpEngine.Builder().setAllowedHostnames(hostnames));
+        hostnames.add("b.example.com");
+        assertSame(engine, HttpEngine.shared(new HttpEngine.Builder().setAllowedHostnames(List.of("a.example.com"))));
+        assertEquals(List.of("a.example.com"), engine.getAllowedHostnames());
+    }
+
+    @Test
+    public void test01_reuseConnection() {
+
+        try (HttpEngine engine = new HttpEngine.Builder().setMaxConnPerRoute(4).build()) {
+
+            HttpUtils httpUtils = new HttpUtils.Builder()
+                    .setUrl(url)
+                    .setEngine(engine)
+                    .setEnablePrinting(false)
+                    .build();
+
+            for (int i = 0; i < 10; i++) {
+                Tuple.Pair<Integer, String> response = httpUtils.get();
+                assertEquals(200, (int) response.getA());
+                assertEquals("{\"hello\":\"world\"}", response.getB());
+            }
+
+            LOGGER.info("pool stats = " + engine.getPoolStats() + ", client ports = " + clientPorts);
+
+            // sequential calls -> single kept-alive connection
+            assertEquals(1, clientPorts.size());
+            assertEquals(0, engine.getPoolStats().getLeased());
+        }
+    }
+
+    @Test
+    public void test02_async() {
+
+        try (HttpEngine engine = new HttpEngine.Builder().setMaxAsyncThreads(8).build()) {
+
+            HttpUtils httpUtils = new HttpUtils.Builder()
+                    .setUrl(url)
+                    .setEngine(engine)
+                    .setEnablePrinting(false)
+                    .build();
+
+            List<CompletableFuture<Tuple.Pair<Integer, String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(httpUtils.getAsync());
+            }
+
+            for (CompletableFuture<Tuple.Pair<Integer, String>> future : futures) {
+                assertEquals(200, (int) future.join().getA());
+            }
+
+            // status of the last completed call is visible to caller thread
+            assertTrue(httpUtils.isSuccessful());
+        }
+    }
+
+    @Test
+    public void test03_asyncRefused() throws Exception {
+
+        // grab a free port, then release it -> nobody listens
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        HttpUtils httpUtils = new HttpUtils.Builder()
+                .setUrl("http://127.0.0.1:" + port + "/hello")
+                .setEnablePrinting(false)
+                .build();
+
+        Tuple.Pair<Integer, String> response = httpUtils.postJsonAsync("{}").get(10, TimeUnit.SECONDS);
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) response.getA());
+    }
+
+    @Test
+    public void test04_invokeAll() {
+
+        String slowUrl = url.replace("/hello", "/slow");
+        List<HttpUtils> httpUtilsList = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            httpUtilsList.add(new HttpUtils.Builder()
+                    .setUrl(i == 5 ? slowUrl : url)
+                    .setEnablePrinting(false)
+                    .build());
+        }
+
+        long start = System.nanoTime();
+        List<Tuple.Pair<Integer, String>> results = HttpUtils.invokeAll(httpUtilsList, 1000);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        LOGGER.info("virtual thread = " + FanOutExecutors.isVirtualThreadSupported() + ", elapsed = " + elapsed + " ms");
+
+        assertEquals(20, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            int expected = (i == 5) ? HttpUtils.STATUS_CODE_CONNECTION_TIMEOUT : 200;
+            assertEquals(expected, (int) results.get(i).getA());
+        }
+
+        // slow request is cancelled at deadline
+        assertTrue(elapsed < 2500);
+    }
+
+    @Test
+    public void test05_invokeAllSharedInstance() throws Exception {
+
+        HttpUtils shared = new HttpUtils.Builder()
+                .setUrl(url.replace("/hello", "/slow"))
+                .setEnablePrinting(false)
+                .build();
+
+        // same instance is in use on another thread
+        CompletableFuture<Tuple.Pair<Integer, String>> other = shared.getAsync();
+        Thread.sleep(200);
+
+        List<Tuple.Pair<Integer, String>> results = HttpUtils.invokeAll(List.of(shared), 500);
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_TIMEOUT, (int) results.get(0).getA());
+
+        // only the request of the timed-out entry is aborted
+        assertEquals(200, (int) other.get(10, TimeUnit.SECONDS).getA());
+    }
+}
@@ -0,0 +1,147 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HttpLoggerTest {
+
+    private static final String LOGGER_NAME = "HttpLoggerTest.capture";
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private Handler handler;
+
+    @Before
+    public void init() throws Exception {
+
+        // echo received length
+        server.createContext("/echo", exchange -> {
+            byte[] bytes = String.valueOf(exchange.getRequestBody().readAllBytes().length).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        baseUrl = server.getBaseUrl();
+
+        // capture instead of printing
+        handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(LOGGER_NAME);
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+    }
+
+    @After
+    public void destroy() {
+        Logger.getLogger(LOGGER_NAME).removeHandler(handler);
+    }
+
+    @Test
+    public void test00_preview() {
+
+        String text = "0123456789".repeat(10);
+        assertEquals(text, HttpLogger.preview(new StringEntity(text, StandardCharsets.UTF_8), 1024));
+        assertTrue(HttpLogger.preview(new StringEntity(text, StandardCharsets.UTF_8), 16).startsWith("0123456789012345... [StringEntity"));
+
+        // stream is NOT touched
+        ByteArrayInputStream is = new ByteArrayInputStream(new byte[100]);
+        String preview = HttpLogger.preview(new InputStreamEntity(is, 100, ContentType.APPLICATION_OCTET_STREAM), 16);
+        assertEquals("[InputStreamEntity, application/octet-stream, 100 bytes]", preview);
+        assertEquals(100, is.available());
+
+        // binary body is NOT previewed, even if repeatable
+        preview = HttpLogger.preview(new ByteArrayEntity(new byte[100], ContentType.APPLICATION_OCTET_STREAM), 16);
+        assertEquals("[ByteArrayEntity, application/octet-stream, 100 bytes]", preview);
+        assertEquals("{}", HttpLogger.preview(new StringEntity("{}", ContentType.APPLICATION_JSON), 16));
+    }
+
+    @Test
+    public void test01_nonConsuming() {
+
+        HttpLogger httpLogger = new HttpLogger.Builder().setLoggerName(LOGGER_NAME).setMaxBodyPreview(64).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/echo").setHttpLogger(httpLogger).build();
+
+        // non-repeatable entity is still sent in full
+        InputStreamEntity entity = new InputStreamEntity(new ByteArrayInputStream(new byte[100000]), 100000);
+        Tuple.Pair<Integer, String> response = httpUtils.post(entity, null, ResponseBodyHandlers.ofString());
+        assertEquals("100000", response.getB());
+
+        httpUtils.postText("x".repeat(1000));
+        httpLogger.close();
+
+        assertEquals(4, httpLogger.getLoggedCount());
+        assertEquals(0, httpLogger.getDroppedCount());
+        assertTrue(messages.get(0).contains("[InputStreamEntity"));
+        assertTrue(messages.get(2).contains("x".repeat(64) + "... [StringEntity"));
+        assertTrue(messages.get(3).contains("(200)"));
+    }
+
+    @Test
+    public void test02_sampling() {
+
+        HttpLogger httpLogger = new HttpLogger.Builder().setLoggerName(LOGGER_NAME).setSamplingRate(0.0).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/echo").setHttpLogger(httpLogger).build();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, (int) httpUtils.postText("hello").getA());
+        }
+        httpLogger.close();
+
+        assertEquals(0, httpLogger.getLoggedCount());
+        assertTrue(messages.isEmpty());
+    }
+
+    @Test
+    public void test03_dropOnOverflow() {
+
+        HttpLogger httpLogger = new HttpLogger.Builder().setLoggerName(LOGGER_NAME).setQueueCapacity(1).build();
+
+        for (int i = 0; i < 10000; i++) {
+            httpLogger.log("message " + i);
+        }
+        httpLogger.close();
+
+        assertTrue(httpLogger.getDroppedCount() > 0);
+        assertEquals(10000, httpLogger.getLoggedCount() + httpLogger.getDroppedCount());
+        assertEquals(httpLogger.getLoggedCount(), messages.size());
+    }
+}
@@ -0,0 +1,170 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HttpMetricsTest {
+
+    private static final Logger LOGGER = Logger.getLogger("HttpMetricsTest");
+
+    private static final String HOST = "127.0.0.1";
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+
+    @Before
+    public void init() throws Exception {
+
+        server.createContext("/hello", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = new byte[1000];
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        baseUrl = server.getBaseUrl();
+    }
+
+    @Test
+    public void test00_metrics() {
+
+        HttpMetrics metrics = new HttpMetrics();
+
+        HttpUtils hello = new HttpUtils.Builder().setUrl(baseUrl + "/hello").setMetricsListener(metrics).setEnablePrinting(false).build();
+        HttpUtils missing = new HttpUtils.Builder().setUrl(baseUrl + "/missing").setMetricsListener(metrics).setEnablePrinting(false).build();
+
+        for (int i = 0; i < 10; i++) {
+            hello.get();
+        }
+        hello.postText("x".repeat(5000));
+        missing.get();
+
+        HttpMetrics.Stats ok = metrics.getStats(HOST, "2XX");
+        LOGGER.info("2XX: count = " + ok.getRequestCount() + ", sent = " + ok.getBytesSent() + ", received = " + ok.getBytesReceived()
+                + ", total p50 = " + ok.getTotalTime().percentile(0.5) + " µs, ttfb p99 = " + ok.getTimeToFirstByte().percentile(0.99) + " µs");
+
+        assertEquals(11, ok.getRequestCount());
+        assertTrue(ok.getBytesSent() > 5000);
+        assertTrue(ok.getBytesReceived() > 11 * 1000);
+        assertEquals(11, ok.getTotalTime().getCount());
+        assertTrue(ok.getTimeToFirstByte().percentile(0.99) <= ok.getTotalTime().percentile(0.99));
+
+        assertEquals(1, metrics.getStats(HOST, "4XX").getRequestCount());
+        assertEquals(12, metrics.getRequestCount());
+        assertEquals(0, metrics.getInFlightCount(HOST));
+    }
+
+    @Test
+    public void test01_connectionFailure() {
+
+        HttpMetrics metrics = new HttpMetrics();
+
+        server.stop();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/hello").setMetricsListener(metrics).setEnablePrinting(false).build();
+        httpUtils.get();
+
+        HttpMetrics.Stats error = metrics.getStats(HOST, "ERR");
+        assertEquals(1, error.getRequestCount());
+        // never connected
+        assertEquals(0, error.getConnectTime().getCount());
+        assertEquals(1, error.getTotalTime().getCount());
+    }
+
+    @Test
+    public void test02_jmx() throws Exception {
+
+        HttpMetrics metrics = new HttpMetrics();
+        ObjectName objectName = metrics.registerMBean("test-client");
+        assertNotNull(objectName);
+
+        try {
+            new HttpUtils.Builder().setUrl(baseUrl + "/hello").setMetricsListener(metrics).setEnablePrinting(false).build().get();
+
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, mBeanServer.getAttribute(objectName, "RequestCount"));
+            assertNotNull(mBeanServer.getAttribute(objectName, "TotalTimeP99"));
+
+            Map<String, Long> counts = metrics.getRequestCounts();
+            assertEquals(Long.valueOf(1L), counts.get(HOST + " 2XX"));
+
+        } finally {
+            metrics.unregisterMBean();
+        }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+
+    @Test
+    public void test03_http2() {
+
+        HttpMetrics metrics = new HttpMetrics();
+
+        HttpUtils hello = new HttpUtils.Builder().setUrl(baseUrl + "/hello").setEnableHttp2(true)
+                .setMetricsListener(metrics).setEnablePrinting(false).build();
+        hello.postText("x".repeat(5000));
+
+        HttpMetrics.Stats ok = metrics.getStats(HOST, "2XX");
+        assertEquals(1, ok.getRequestCount());
+        // body bytes only
+        assertEquals(5000, ok.getBytesSent());
+        assertEquals(1000, ok.getBytesReceived());
+        assertEquals(1, ok.getTimeToFirstByte().getCount());
+        assertTrue(ok.getTimeToFirstByte().percentile(0.99) <= ok.getTotalTime().percentile(0.99));
+        // NOT exposed by JDK HttpClient
+        assertEquals(0, ok.getConnectTime().getCount());
+    }
+
+    @Test
+    public void test04_histogram() {
+
+        HttpMetrics.LatencyHistogram histogram = new HttpMetrics.LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            // 1 ~ 100 ms
+            histogram.record(i * 1000000L);
+        }
+        histogram.record(-1L);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50500.0, histogram.getMean(), 0.0);
+        // p50 = 50 ms -> bucket [32768, 65536) µs
+        assertEquals(65535L, histogram.percentile(0.5));
+        assertEquals(131071L, histogram.percentile(0.99));
+    }
+
+    @Test
+    public void test05_nullHost() {
+
+        // request without host (ex: malformed url) is recorded under ""
+        HttpMetrics metrics = new HttpMetrics();
+        metrics.onRequestStarted(null);
+        assertEquals(1, metrics.getInFlightCount(null));
+
+        metrics.onRequestCompleted(new RequestMetrics(null, HttpUtils.STATUS_CODE_UNKNOWN, 0L, 0L, -1L, -1L, 1000L));
+        assertEquals(0, metrics.getInFlightCount(""));
+        assertEquals(1, metrics.getStats("", "ERR").getTotalTime().getCount());
+    }
+}
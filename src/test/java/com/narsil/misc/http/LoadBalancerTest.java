@@ -0,0 +1,183 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class LoadBalancerTest {
+
+    private static final Logger LOGGER = Logger.getLogger("LoadBalancerTest");
+
+    @Rule
+    public final LocalHttpServer serverA = new LocalHttpServer();
+
+    @Rule
+    public final LocalHttpServer serverB = new LocalHttpServer();
+
+    private String deadUrl;
+
+    @Before
+    public void init() throws Exception {
+
+        serve(serverA, "A");
+        serve(serverB, "B");
+
+        // port which refuses connection
+        deadUrl = LocalHttpServer.deadUrl();
+    }
+
+    private static void serve(LocalHttpServer server, String name) {
+
+        server.createContext("/api/name", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @Test
+    public void test00_roundRobin() {
+
+        LoadBalancer loadBalancer = new LoadBalancer.Builder()
+                .setBaseUrls(List.of(serverA.getBaseUrl(), serverB.getBaseUrl() + "/"))
+                .build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl("/api/name").setLoadBalancer(loadBalancer).setEnablePrinting(false).build();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            Tuple.Pair<Integer, String> response = httpUtils.get();
+            assertEquals(200, (int) response.getA());
+            sb.append(response.getB());
+        }
+
+        assertEquals("ABABAB", sb.toString());
+        for (LoadBalancer.Endpoint endpoint : loadBalancer.getEndpoints()) {
+            assertEquals(3, endpoint.getRequestCount());
+            assertEquals(0, endpoint.getOutstanding());
+        }
+    }
+
+    @Test
+    public void test01_ejection() {
+
+        LoadBalancer loadBalancer = new LoadBalancer.Builder()
+                .setBaseUrls(List.of(deadUrl, serverA.getBaseUrl(), serverB.getBaseUrl()))
+                .setEjectionThreshold(1)
+                .build();
+
+        // connection refused is retried on another endpoint
+        RetryPolicy retryPolicy = new RetryPolicy.Builder()
+                .setBaseDelay(1L)
+                .setRetryStatusCodes(Set.of(HttpUtils.STATUS_CODE_CONNECTION_REFUSED))
+                .build();
+
+        HttpUtils httpUtils = new HttpUtils.Builder()
+                .setUrl("/api/name")
+                .setLoadBalancer(loadBalancer)
+                .setRetryPolicy(retryPolicy)
+                .setEnablePrinting(false)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, (int) httpUtils.get().getA());
+        }
+
+        LoadBalancer.Endpoint dead = loadBalancer.getEndpoints().get(0);
+        LOGGER.info("dead endpoint: requests = " + dead.getRequestCount() + ", ejections = " + dead.getEjectionCount());
+        assertTrue(dead.isEjected());
+        assertEquals(1, dead.getRequestCount());
+        assertEquals(1, dead.getEjectionCount());
+    }
+
+    @Test
+    public void test02_failOpen() {
+
+        LoadBalancer loadBalancer = new LoadBalancer.Builder().setBaseUrls(List.of(deadUrl)).setEjectionThreshold(1).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl("/api/name").setLoadBalancer(loadBalancer).setEnablePrinting(false).build();
+
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) httpUtils.get().getA());
+        assertTrue(loadBalancer.getEndpoints().get(0).isEjected());
+
+        // every endpoint is ejected -> still tried
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) httpUtils.get().getA());
+        assertEquals(2, loadBalancer.getEndpoints().get(0).getRequestCount());
+    }
+
+    @Test
+    public void test03_rejectedBeforeSent() {
+
+        LoadBalancer loadBalancer = new LoadBalancer.Builder().setBaseUrls(List.of(deadUrl)).setEjectionThreshold(3).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl("/api/name").setLoadBalancer(loadBalancer).setEnablePrinting(false).build();
+
+        // one permit, no refill in time
+        RateLimiter rateLimiter = new RateLimiter.Builder().setDefaultLimit(0.001, 1).setMaxWaitDuration(0L).build();
+        HttpUtils limited = new HttpUtils.Builder().setUrl("/api/name").setLoadBalancer(loadBalancer)
+                .setRateLimiter(rateLimiter).setEnablePrinting(false).build();
+
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) httpUtils.get().getA());
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) limited.get().getA());
+
+        // never reached the endpoint -> NOT a success of it
+        assertEquals(HttpUtils.STATUS_CODE_RATE_LIMITED, (int) limited.get().getA());
+        assertEquals(0, loadBalancer.getEndpoints().get(0).getOutstanding());
+
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) httpUtils.get().getA());
+        assertTrue(loadBalancer.getEndpoints().get(0).isEjected());
+    }
+
+    @Test
+    public void test04_leastOutstanding() {
+
+        LoadBalancer loadBalancer = new LoadBalancer.Builder()
+                .setBaseUrls(List.of("http://a", "http://b", "http://c"))
+                .setStrategy(LoadBalancer.Strategy.LEAST_OUTSTANDING)
+                .build();
+
+        // 3 calls in flight -> one per endpoint
+        LoadBalancer.Endpoint first = loadBalancer.select();
+        loadBalancer.select();
+        loadBalancer.select();
+        for (LoadBalancer.Endpoint endpoint : loadBalancer.getEndpoints()) {
+            assertEquals(1, endpoint.getOutstanding());
+        }
+
+        // the endpoint which finished first gets the next call
+        loadBalancer.release(first, 200);
+        assertSame(first, loadBalancer.select());
+    }
+
+    @Test
+    public void test05_powerOfTwoChoices() {
+
+        LoadBalancer loadBalancer = new LoadBalancer.Builder()
+                .setBaseUrls(List.of("http://a", "http://b"))
+                .setStrategy(LoadBalancer.Strategy.POWER_OF_TWO_CHOICES)
+                .build();
+
+        LoadBalancer.Endpoint busy = loadBalancer.select();
+        for (int i = 0; i < 10; i++) {
+            LoadBalancer.Endpoint endpoint = loadBalancer.select();
+            assertNotSame(busy, endpoint);
+            loadBalancer.release(endpoint, 200);
+        }
+
+        assertEquals("http://a/api", loadBalancer.getEndpoints().get(0).resolve("api"));
+    }
+}
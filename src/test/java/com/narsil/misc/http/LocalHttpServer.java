@@ -0,0 +1,98 @@
+package com.narsil.misc.http;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.rules.ExternalResource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+/**
+ * local http server of a test class (127.0.0.1, ephemeral port)
+ * <p>
+ * created before every test (contexts are added by @Before, then started), and stopped after every test.
+ * usage: {@code @Rule public final LocalHttpServer server = new LocalHttpServer();}
+ *
+ * @author iamnarsil
+ * @version 20261018
+ * @since 20261018
+ */
+public class LocalHttpServer extends ExternalResource {
+
+    public static final String HOST = "127.0.0.1";
+
+    private HttpServer server;
+
+    @Override
+    protected void before() throws IOException {
+        server = create();
+    }
+
+    @Override
+    protected void after() {
+        server.stop(0);
+    }
+
+    /**
+     * create a server which is NOT started
+     *
+     * @return server bound to an ephemeral port of 127.0.0.1
+     * @throws IOException server can NOT be created
+     */
+    private static HttpServer create() throws IOException {
+        return HttpServer.create(new InetSocketAddress(HOST, 0), 0);
+    }
+
+    /**
+     * base url of given server (ex: http://127.0.0.1:54321)
+     *
+     * @param server server
+     * @return base url
+     */
+    public static String baseUrl(HttpServer server) {
+        return "http://" + HOST + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * base url of a port which refuses connection
+     *
+     * @return base url
+     * @throws IOException server can NOT be created
+     */
+    public static String deadUrl() throws IOException {
+
+        HttpServer dead = create();
+        dead.start();
+        String url = baseUrl(dead);
+        dead.stop(0);
+        return url;
+    }
+
+    public void createContext(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+    }
+
+    public void setExecutor(Executor executor) {
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * stop before the end of test (ex: connection refused)
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    public String getBaseUrl() {
+        return baseUrl(server);
+    }
+
+    public HttpServer getServer() {
+        return server;
+    }
+}
@@ -0,0 +1,231 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.Tuple;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RangedDownloaderTest {
+
+    private static final Logger LOGGER = Logger.getLogger("RangedDownloaderTest");
+
+    private static final int RANGE_SIZE = 64 * 1024;
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+    private Path target;
+    private byte[] data;
+    private byte[] gzipped;
+    private volatile String etag = "\"v1\"";
+
+    // ranged requests served / to be failed
+    private final AtomicInteger rangeCount = new AtomicInteger();
+    private final AtomicInteger failAfter = new AtomicInteger(Integer.MAX_VALUE);
+
+    @Before
+    public void init() throws Exception {
+
+        data = new byte[10 * RANGE_SIZE + 123];
+        new Random(42).nextBytes(data);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+            gos.write(data);
+        }
+        gzipped = bos.toByteArray();
+
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/ranged", exchange -> ranged(exchange, false));
+        server.createContext("/encoded", exchange -> ranged(exchange, true));
+        server.createContext("/plain", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(data);
+            }
+        });
+        server.start();
+        baseUrl = server.getBaseUrl();
+
+        target = Files.createTempFile("download", ".bin");
+        Files.delete(target);
+    }
+
+    @After
+    public void destroy() throws Exception {
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(target.resolveSibling(target.getFileName() + ".checkpoint"));
+    }
+
+    private void ranged(HttpExchange exchange, boolean isEncoded) throws IOException {
+
+        exchange.getRequestBody().readAllBytes();
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        exchange.getResponseHeaders().set("ETag", etag);
+
+        // ranges of gzip representation, unless identity is asked
+        byte[] body = data;
+        if (isEncoded && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = gzipped;
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+
+        // no range, or resource changed -> full body
+        if (range == null || (ifRange != null && !ifRange.equals(etag))) {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+            return;
+        }
+
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = Integer.parseInt(bounds[1]);
+
+        // simulate failure (server error) after some ranges, probe (bytes=0-0) is not counted
+        if (end > 0 && rangeCount.incrementAndGet() > failAfter.get()) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+        exchange.sendResponseHeaders(206, end - start + 1);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body, start, end - start + 1);
+        }
+    }
+
+    private RangedDownloader downloader(String path, AtomicLong progress) {
+        return new RangedDownloader.Builder()
+                .setUrl(baseUrl + path)
+                .setTarget(target)
+                .setParallelism(4)
+                .setRangeSize(RANGE_SIZE)
+                .setBufferSize(8192)
+                .setProgressListener((transferred, total) -> progress.accumulateAndGet(transferred, Math::max))
+                .build();
+    }
+
+    @Test
+    public void test00_parallel() throws Exception {
+
+        AtomicLong progress = new AtomicLong();
+        RangedDownloader downloader = downloader("/ranged", progress);
+        Tuple.Pair<Integer, Path> result = downloader.download();
+
+        assertEquals(200, (int) result.getA());
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(11, rangeCount.get());
+        assertEquals(data.length, progress.get());
+        assertFalse(Files.exists(downloader.getCheckpointPath()));
+    }
+
+    @Test
+    public void test01_resume() throws Exception {
+
+        failAfter.set(5);
+        RangedDownloader downloader = downloader("/ranged", new AtomicLong());
+        assertEquals(500, (int) downloader.download().getA());
+        assertTrue(Files.exists(downloader.getCheckpointPath()));
+
+        // only the missing ranges are fetched again
+        failAfter.set(Integer.MAX_VALUE);
+        rangeCount.set(0);
+        assertEquals(200, (int) downloader.download().getA());
+
+        LOGGER.info("resumed = " + downloader.getResumedBytes() + " bytes, ranges fetched = " + rangeCount.get());
+        assertTrue(downloader.getResumedBytes() > 0);
+        assertTrue(rangeCount.get() < 11);
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertFalse(Files.exists(downloader.getCheckpointPath()));
+    }
+
+    @Test
+    public void test02_changed() throws Exception {
+
+        failAfter.set(5);
+        RangedDownloader downloader = downloader("/ranged", new AtomicLong());
+        assertEquals(500, (int) downloader.download().getA());
+
+        // new version -> checkpoint is NOT reused
+        etag = "\"v2\"";
+        Arrays.fill(data, (byte) 7);
+        failAfter.set(Integer.MAX_VALUE);
+        assertEquals(200, (int) downloader.download().getA());
+
+        assertEquals(0, downloader.getResumedBytes());
+        assertArrayEquals(data, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void test03_noRangeSupport() throws Exception {
+
+        AtomicLong progress = new AtomicLong();
+        assertEquals(200, (int) downloader("/plain", progress).download().getA());
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(data.length, progress.get());
+    }
+
+    @Test
+    public void test04_unknownLength() throws Exception {
+
+        // range is honored, but total is unknown ("bytes 0-0/*")
+        AtomicInteger plainCount = new AtomicInteger();
+        server.createContext("/unknown", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (exchange.getRequestHeaders().getFirst("Range") != null) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes 0-0/*");
+                exchange.sendResponseHeaders(206, 1);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(data, 0, 1);
+                }
+                return;
+            }
+            plainCount.incrementAndGet();
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(data);
+            }
+        });
+
+        assertEquals(200, (int) downloader("/unknown", new AtomicLong()).download().getA());
+        assertEquals(1, plainCount.get());
+        assertArrayEquals(data, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void test05_identityEncoding() throws Exception {
+
+        // server compresses the representation when gzip is accepted -> ranges must be asked of identity one
+        assertEquals(200, (int) downloader("/encoded", new AtomicLong()).download().getA());
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(11, rangeCount.get());
+    }
+}
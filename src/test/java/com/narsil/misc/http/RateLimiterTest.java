@@ -0,0 +1,157 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RateLimiterTest {
+
+    private static final Logger LOGGER = Logger.getLogger("RateLimiterTest");
+
+    private static final URI SEARCH = URI.create("https://api.partner.com/v1/search?q=a");
+    private static final URI ITEMS = URI.create("https://api.partner.com/v1/items");
+    private static final URI OTHER = URI.create("https://other.com/");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    @Test
+    public void test00_burstThenRefill() throws Exception {
+
+        RateLimiter rateLimiter = new RateLimiter.Builder().setLimit("api.partner.com", 10, 5).build();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(ITEMS));
+        }
+        assertFalse(rateLimiter.tryAcquire(ITEMS));
+
+        // not limited
+        assertTrue(rateLimiter.tryAcquire(OTHER));
+
+        // 1 permit per 100 ms
+        Thread.sleep(150);
+        assertTrue(rateLimiter.tryAcquire(ITEMS));
+        assertFalse(rateLimiter.tryAcquire(ITEMS));
+
+        // url without rule is not counted
+        assertEquals(5 + 1, rateLimiter.getAcquiredCount());
+        assertEquals(2, rateLimiter.getRejectedCount());
+    }
+
+    @Test
+    public void test01_timed() throws Exception {
+
+        RateLimiter rateLimiter = new RateLimiter.Builder().setLimit("api.partner.com", 10, 1).build();
+        assertTrue(rateLimiter.tryAcquire(ITEMS));
+
+        // next permit in ~100 ms -> rejected at once, without waiting the timeout
+        long start = System.nanoTime();
+        assertFalse(rateLimiter.tryAcquire(ITEMS, 50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40));
+
+        assertTrue(rateLimiter.tryAcquire(ITEMS, 200, TimeUnit.MILLISECONDS));
+        assertEquals(1, rateLimiter.getThrottledCount());
+    }
+
+    @Test
+    public void test02_prefix() {
+
+        RateLimiter rateLimiter = new RateLimiter.Builder()
+                .setLimit("api.partner.com", 100, 10)
+                .setLimit("https://api.partner.com/v1/search", 1, 1)
+                .setDefaultLimit(1, 2)
+                .build();
+
+        // longest prefix wins
+        assertTrue(rateLimiter.tryAcquire(SEARCH));
+        assertFalse(rateLimiter.tryAcquire(SEARCH));
+
+        // host rule
+        for (int i = 0; i < 10; i++) {
+            assertTrue(rateLimiter.tryAcquire(ITEMS));
+        }
+
+        // default limit, per host
+        assertTrue(rateLimiter.tryAcquire(OTHER));
+        assertTrue(rateLimiter.tryAcquire(OTHER));
+        assertFalse(rateLimiter.tryAcquire(OTHER));
+        assertTrue(rateLimiter.tryAcquire(URI.create("https://another.com/")));
+    }
+
+    @Test
+    public void test03_blockingIsSmooth() throws Exception {
+
+        RateLimiter rateLimiter = new RateLimiter.Builder().setLimit("api.partner.com", 50, 1).build();
+        AtomicInteger count = new AtomicInteger();
+
+        // 4 threads x 10 permits at 50 per second -> at least ~780 ms
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        rateLimiter.acquire(ITEMS);
+                        count.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        LOGGER.info("40 permits in " + elapsed + " ms");
+        assertEquals(40, count.get());
+        assertTrue(elapsed >= 750);
+        assertTrue(elapsed < 2000);
+    }
+
+    @Test
+    public void test04_httpUtils() throws Exception {
+
+        AtomicInteger received = new AtomicInteger();
+        server.createContext("/quota", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            received.incrementAndGet();
+            exchange.sendResponseHeaders(200, 2);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("ok".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+
+        // fail fast instead of waiting
+        RateLimiter rateLimiter = new RateLimiter.Builder().setLimit("127.0.0.1", 1, 3).setMaxWaitDuration(0).build();
+        HttpUtils httpUtils = new HttpUtils.Builder()
+                .setUrl(server.getBaseUrl() + "/quota")
+                .setEnablePrinting(false)
+                .setRateLimiter(rateLimiter)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, (int) httpUtils.get().getA());
+        }
+        assertEquals(HttpUtils.STATUS_CODE_RATE_LIMITED, (int) httpUtils.get().getA());
+        assertEquals(3, received.get());
+    }
+}
@@ -0,0 +1,93 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.Tuple;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RequestCoalescerTest {
+
+    private static final Logger LOGGER = Logger.getLogger("RequestCoalescerTest");
+
+    @Test
+    public void test00_coalesce() throws Exception {
+
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger physicalCount = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<Tuple.Pair<Integer, String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> coalescer.execute("GET /config", () -> {
+                    physicalCount.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Tuple.collect(200, "{}");
+                })));
+            }
+
+            // wait until all followers are parked on the leader
+            while (coalescer.getCoalescedCount() < 19) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            Tuple.Pair<Integer, String> first = futures.get(0).get();
+            for (Future<Tuple.Pair<Integer, String>> future : futures) {
+                assertSame(first, future.get());
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOGGER.info("executed = " + coalescer.getExecutedCount() + ", coalesced = " + coalescer.getCoalescedCount());
+        assertEquals(1, physicalCount.get());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void test01_sequential() {
+
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger physicalCount = new AtomicInteger();
+
+        // not in flight at the same time -> no coalescing
+        for (int i = 0; i < 3; i++) {
+            coalescer.execute("GET /config", () -> Tuple.collect(physicalCount.incrementAndGet(), null));
+        }
+
+        assertEquals(3, physicalCount.get());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test02_failure() {
+
+        RequestCoalescer coalescer = new RequestCoalescer();
+        try {
+            coalescer.execute("GET /config", () -> {
+                throw new IllegalStateException("boom");
+            });
+        } finally {
+            assertEquals(0, coalescer.getInFlightCount());
+        }
+    }
+}
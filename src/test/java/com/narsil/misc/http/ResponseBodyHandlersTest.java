@@ -0,0 +1,152 @@
+package com.narsil.misc.http;
+
+import com.google.gson.reflect.TypeToken;
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ResponseBodyHandlersTest {
+
+    private static final Logger LOGGER = Logger.getLogger("ResponseBodyHandlersTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private HttpUtils httpUtils;
+    private byte[] payload;
+    private String jsonUrl;
+
+    @Before
+    public void init() throws Exception {
+
+        payload = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 251);
+        }
+
+        server.createContext("/download", exchange -> {
+            // chunked transfer
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(payload);
+            }
+        });
+        server.createContext("/json", exchange -> {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < 10000; i++) {
+                sb.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item-").append(i).append("\"}");
+            }
+            byte[] bytes = sb.append("]").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+
+        jsonUrl = server.getBaseUrl() + "/json";
+
+        httpUtils = new HttpUtils.Builder()
+                .setUrl(server.getBaseUrl() + "/download")
+                .setEnablePrinting(false)
+                .build();
+    }
+
+    @Test
+    public void test00_ofPath() throws Exception {
+
+        Path path = Files.createTempFile("download", ".bin");
+        try {
+            Tuple.Pair<Integer, Path> response = httpUtils.get(ResponseBodyHandlers.ofPath(path));
+
+            assertEquals(200, (int) response.getA());
+            assertEquals(path, response.getB());
+            assertArrayEquals(payload, Files.readAllBytes(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void test01_ofInputStream() throws Exception {
+
+        Tuple.Pair<Integer, InputStream> response = httpUtils.get(ResponseBodyHandlers.ofInputStream());
+        assertEquals(200, (int) response.getA());
+
+        try (InputStream is = response.getB()) {
+            assertArrayEquals(payload, is.readAllBytes());
+        }
+
+        // connection is released after stream is closed
+        assertEquals(0, httpUtils.getEngine().getPoolStats().getLeased());
+    }
+
+    @Test
+    public void test02_ofByteBuffers() {
+
+        AtomicInteger offset = new AtomicInteger();
+        byte[] received = new byte[payload.length];
+
+        Tuple.Pair<Integer, Long> response = httpUtils.get(ResponseBodyHandlers.ofByteBuffers(buffer -> {
+            int length = buffer.remaining();
+            buffer.get(received, offset.getAndAdd(length), length);
+        }, 8192));
+
+        LOGGER.info("received " + response.getB() + " bytes");
+
+        assertEquals(200, (int) response.getA());
+        assertEquals(payload.length, (long) response.getB());
+        assertArrayEquals(payload, received);
+    }
+
+    @Test
+    public void test03_ofJson() {
+
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(jsonUrl).setEnablePrinting(false).build();
+
+        Type typeOfT = new TypeToken<List<Item>>(){}.getType();
+        Tuple.Pair<Integer, List<Item>> response = httpUtils.getJson(typeOfT);
+
+        assertEquals(200, (int) response.getA());
+        assertEquals(10000, response.getB().size());
+        assertEquals("item-9999", response.getB().get(9999).name);
+    }
+
+    @Test
+    public void test04_ofJsonArray() {
+
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(jsonUrl).setEnablePrinting(false).build();
+
+        AtomicLong sum = new AtomicLong();
+        Tuple.Pair<Integer, Long> response = httpUtils.<Item>getJsonArray(Item.class, item -> sum.addAndGet(item.id));
+
+        assertEquals(200, (int) response.getA());
+        assertEquals(10000L, (long) response.getB());
+        assertEquals(9999L * 10000L / 2L, sum.get());
+    }
+
+    private static class Item {
+
+        private int id;
+        private String name;
+    }
+}
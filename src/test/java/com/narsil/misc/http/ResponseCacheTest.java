@@ -0,0 +1,174 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ResponseCacheTest {
+
+    private static final Logger LOGGER = Logger.getLogger("ResponseCacheTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    @Before
+    public void init() throws Exception {
+
+        // fresh for 60 seconds
+        server.createContext("/fresh", exchange -> {
+            requestCount.incrementAndGet();
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+            send(exchange, 200, "{\"config\":\"fresh\"}");
+        });
+
+        // always revalidate by ETag
+        server.createContext("/etag", exchange -> {
+            requestCount.incrementAndGet();
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                send(exchange, 200, "{\"config\":\"etag\"}");
+            }
+        });
+
+        // not cacheable
+        server.createContext("/no-store", exchange -> {
+            requestCount.incrementAndGet();
+            exchange.getResponseHeaders().add("Cache-Control", "no-store");
+            send(exchange, 200, "{}");
+        });
+
+        server.start();
+        baseUrl = server.getBaseUrl();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private HttpUtils build(String path, ResponseCache cache) {
+        return new HttpUtils.Builder()
+                .setUrl(baseUrl + path)
+                .setResponseCache(cache)
+                .setEnablePrinting(false)
+                .build();
+    }
+
+    @Test
+    public void test00_maxAge() {
+
+        ResponseCache cache = ResponseCache.onHeap(1024 * 1024);
+        HttpUtils httpUtils = build("/fresh", cache);
+
+        for (int i = 0; i < 5; i++) {
+            Tuple.Pair<Integer, String> response = httpUtils.get();
+            assertEquals(200, (int) response.getA());
+            assertEquals("{\"config\":\"fresh\"}", response.getB());
+        }
+
+        assertEquals(1, requestCount.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(4, cache.getHitCount());
+    }
+
+    @Test
+    public void test01_revalidate() {
+
+        ResponseCache cache = ResponseCache.onHeap(1024 * 1024);
+        HttpUtils httpUtils = build("/etag", cache);
+
+        for (int i = 0; i < 3; i++) {
+            Tuple.Pair<Integer, String> response = httpUtils.get();
+            assertEquals(200, (int) response.getA());
+            assertEquals("{\"config\":\"etag\"}", response.getB());
+            assertTrue(httpUtils.isSuccessful());
+        }
+
+        assertEquals(3, requestCount.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getRevalidationCount());
+    }
+
+    @Test
+    public void test02_noStore() {
+
+        ResponseCache cache = ResponseCache.onHeap(1024 * 1024);
+        HttpUtils httpUtils = build("/no-store", cache);
+
+        httpUtils.get();
+        httpUtils.get();
+
+        assertEquals(2, requestCount.get());
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void test03_lruEviction() {
+
+        // room for roughly 2 entries
+        ResponseCache cache = ResponseCache.onHeap(400);
+
+        for (int i = 0; i < 5; i++) {
+            build("/fresh?i=" + i, cache).get();
+        }
+
+        LOGGER.info("entry count = " + cache.getEntryCount() + ", size = " + cache.getSize());
+        assertTrue(cache.getEntryCount() <= 2);
+        assertTrue(cache.getSize() <= 400);
+
+        // most recent entry survives
+        build("/fresh?i=4", cache).get();
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void test04_onDisk() throws Exception {
+
+        Path dir = Files.createTempDirectory("response-cache");
+        try {
+            ResponseCache cache = ResponseCache.onDisk(dir, 1024 * 1024);
+            build("/fresh", cache).get();
+            assertEquals(1, cache.getEntryCount());
+
+            // a new cache on the same directory picks up existing entries
+            ResponseCache reopened = ResponseCache.onDisk(dir, 1024 * 1024);
+            Tuple.Pair<Integer, String> response = build("/fresh", reopened).get();
+
+            assertEquals("{\"config\":\"fresh\"}", response.getB());
+            assertEquals(1, requestCount.get());
+            assertEquals(1, reopened.getHitCount());
+
+            reopened.clear();
+            assertEquals(0, reopened.getEntryCount());
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RetryPolicyTest {
+
+    private static final Logger LOGGER = Logger.getLogger("RetryPolicyTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private String baseUrl;
+    private final AtomicInteger hitCount = new AtomicInteger();
+
+    @Before
+    public void init() throws Exception {
+
+        // 503 twice, then 200
+        server.createContext("/flaky", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (hitCount.incrementAndGet() <= 2) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                byte[] bytes = "ok".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.createContext("/throttled", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            hitCount.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+        });
+        server.start();
+
+        baseUrl = server.getBaseUrl();
+    }
+
+    @Test
+    public void test00_retryOnStatus() {
+
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().setBaseDelay(10L).setMaxDelay(100L).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/flaky").setRetryPolicy(retryPolicy).setEnablePrinting(false).build();
+
+        Tuple.Pair<Integer, String> response = httpUtils.postText("hello");
+
+        assertEquals(200, (int) response.getA());
+        assertEquals("ok", response.getB());
+        assertEquals(3, hitCount.get());
+        assertEquals(2, retryPolicy.getRetryCount());
+    }
+
+    @Test
+    public void test01_retryAfter() {
+
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().setMaxRetries(1).setBaseDelay(10L).setMaxDelay(2000L).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/throttled").setRetryPolicy(retryPolicy).setEnablePrinting(false).build();
+
+        long start = System.nanoTime();
+        Tuple.Pair<Integer, String> response = httpUtils.get();
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+
+        LOGGER.info("elapsed = " + elapsed + " ms");
+        assertEquals(429, (int) response.getA());
+        assertEquals(2, hitCount.get());
+        assertTrue(elapsed >= 1000L);
+    }
+
+    @Test
+    public void test02_retryAfterTooLong() {
+
+        // server asks to wait longer than max delay -> give up immediately
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().setMaxDelay(500L).build();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/throttled").setRetryPolicy(retryPolicy).setEnablePrinting(false).build();
+
+        assertEquals(429, (int) httpUtils.get().getA());
+        assertEquals(1, hitCount.get());
+    }
+
+    @Test
+    public void test03_budget() {
+
+        // no refill, 2 retries in total
+        RetryPolicy retryPolicy = new RetryPolicy.Builder()
+                .setMaxRetries(5)
+                .setBaseDelay(1L)
+                .setMaxDelay(10L)
+                .setRetryStatusCodes(Set.of(HttpUtils.STATUS_CODE_CONNECTION_REFUSED))
+                .setBudgetRatio(0.0)
+                .setBudgetCapacity(2.0)
+                .build();
+
+        server.stop();
+        HttpUtils httpUtils = new HttpUtils.Builder().setUrl(baseUrl + "/flaky").setRetryPolicy(retryPolicy).setEnablePrinting(false).build();
+
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) httpUtils.get().getA());
+        assertEquals(HttpUtils.STATUS_CODE_CONNECTION_REFUSED, (int) httpUtils.get().getA());
+
+        LOGGER.info("retry = " + retryPolicy.getRetryCount() + ", budget exhausted = " + retryPolicy.getBudgetExhaustedCount());
+        assertEquals(2, retryPolicy.getRetryCount());
+        assertEquals(2, retryPolicy.getBudgetExhaustedCount());
+    }
+
+    @Test
+    public void test04_parseRetryAfter() {
+
+        assertEquals(0L, RetryPolicy.parseRetryAfter(null));
+        assertEquals(0L, RetryPolicy.parseRetryAfter("invalid"));
+        assertEquals(120000L, RetryPolicy.parseRetryAfter(" 120 "));
+        assertEquals(0L, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+}
@@ -0,0 +1,216 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import com.narsil.misc.Tuple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class StreamingMultipartEntityTest {
+
+    private static final Logger LOGGER = Logger.getLogger("StreamingMultipartEntityTest");
+
+    @Rule
+    public final LocalHttpServer server = new LocalHttpServer();
+
+    private HttpUtils httpUtils;
+    private Path fileA;
+    private Path fileB;
+    private byte[] bytesA;
+    private byte[] bytesB;
+
+    private final AtomicReference<byte[]> receivedBody = new AtomicReference<>();
+    private final AtomicReference<String> receivedTransferEncoding = new AtomicReference<>();
+
+    @Before
+    public void init() throws Exception {
+
+        Random random = new Random(42);
+        bytesA = new byte[300 * 1024 + 7];
+        random.nextBytes(bytesA);
+        // compressible
+        bytesB = "0123456789".repeat(50000).getBytes(StandardCharsets.UTF_8);
+
+        fileA = Files.createTempFile("upload-a", ".bin");
+        fileB = Files.createTempFile("upload-b", ".txt");
+        Files.write(fileA, bytesA);
+        Files.write(fileB, bytesB);
+
+        server.createContext("/upload", exchange -> {
+            receivedTransferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            receivedBody.set(exchange.getRequestBody().readAllBytes());
+            exchange.sendResponseHeaders(200, 2);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("ok".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+
+        httpUtils = new HttpUtils.Builder()
+                .setUrl(server.getBaseUrl() + "/upload")
+                .build();
+    }
+
+    @After
+    public void destroy() throws Exception {
+        Files.deleteIfExists(fileA);
+        Files.deleteIfExists(fileB);
+    }
+
+    @Test
+    public void test00_upload() {
+
+        AtomicLong progress = new AtomicLong();
+        StreamingMultipartEntity entity = new StreamingMultipartEntity.Builder()
+                .addTextPart("comment", "two files")
+                .addFilePart("file", fileA)
+                .addFilePart("file", fileB)
+                .setBoundary("test-boundary")
+                .setChunkSize(8192)
+                .setProgressListener((transferred, total) -> {
+                    assertEquals(bytesA.length + bytesB.length, total);
+                    assertTrue(transferred > progress.get());
+                    progress.set(transferred);
+                })
+                .build();
+
+        // enablePrinting is on, its preview must NOT consume the entity nor report progress
+        Tuple.Pair<Integer, String> response = httpUtils.postMultipart(entity);
+
+        assertEquals(200, (int) response.getA());
+        assertEquals("chunked", receivedTransferEncoding.get());
+        assertEquals(bytesA.length + bytesB.length, progress.get());
+
+        List<byte[]> parts = parse(receivedBody.get(), "test-boundary");
+        assertEquals(3, parts.size());
+        assertEquals("two files", new String(parts.get(0), StandardCharsets.UTF_8));
+        assertArrayEquals(bytesA, parts.get(1));
+        assertArrayEquals(bytesB, parts.get(2));
+    }
+
+    @Test
+    public void test01_compression() throws Exception {
+
+        StreamingMultipartEntity entity = new StreamingMultipartEntity.Builder()
+                .addFilePart("file", fileB)
+                .setBoundary("test-boundary")
+                .setEnableCompression(true)
+                .build();
+
+        assertEquals(200, (int) httpUtils.postMultipart(entity).getA());
+
+        byte[] body = receivedBody.get();
+        LOGGER.info("file = " + bytesB.length + " bytes, request body = " + body.length + " bytes");
+        assertTrue(body.length < bytesB.length / 10);
+        assertTrue(new String(body, StandardCharsets.UTF_8).contains("filename=\"" + fileB.getFileName() + ".gz\""));
+
+        byte[] compressed = parse(body, "test-boundary").get(0);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(bytesB, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    public void test02_retry() {
+
+        // repeatable -> can be sent again
+        StreamingMultipartEntity entity = new StreamingMultipartEntity.Builder().addFilePart("file", fileA).build();
+        assertTrue(entity.isRepeatable());
+
+        assertEquals(200, (int) httpUtils.postMultipart(entity).getA());
+        byte[] first = receivedBody.get();
+        assertEquals(200, (int) httpUtils.postMultipart(entity).getA());
+        assertArrayEquals(first, receivedBody.get());
+    }
+
+    @Test
+    public void test03_getContent() throws Exception {
+
+        StreamingMultipartEntity entity = new StreamingMultipartEntity.Builder()
+                .addTextPart("comment", "one file")
+                .addFilePart("file", fileA)
+                .setBoundary("test-boundary")
+                .build();
+
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        entity.writeTo(written);
+
+        // same body as writeTo
+        try (InputStream is = entity.getContent()) {
+            assertArrayEquals(written.toByteArray(), is.readAllBytes());
+        }
+
+        // closed early -> writer stops
+        try (InputStream is = entity.getContent()) {
+            assertEquals(16, is.readNBytes(16).length);
+        }
+
+        // multipart body is NOT previewed
+        assertEquals("[StreamingMultipartEntity, multipart/form-data; charset=UTF-8; boundary=test-boundary, chunked]",
+                HttpLogger.preview(entity, 15));
+    }
+
+    /**
+     * content of each part
+     */
+    private static List<byte[]> parse(byte[] body, String boundary) {
+
+        byte[] delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        byte[] headerEnd = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        // body starts with "--boundary", make it look like the others
+        byte[] data = new byte[body.length + 2];
+        data[0] = '\r';
+        data[1] = '\n';
+        System.arraycopy(body, 0, data, 2, body.length);
+
+        List<byte[]> parts = new ArrayList<>();
+        int start = indexOf(data, delimiter, 0);
+        while (true) {
+            int next = indexOf(data, delimiter, start + delimiter.length);
+            if (next < 0) {
+                break;
+            }
+            int contentStart = indexOf(data, headerEnd, start) + headerEnd.length;
+            parts.add(Arrays.copyOfRange(data, contentStart, next));
+            start = next;
+        }
+        return parts;
+    }
+
+    private static int indexOf(byte[] data, byte[] target, int from) {
+
+        outer:
+        for (int i = from; i <= data.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (data[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
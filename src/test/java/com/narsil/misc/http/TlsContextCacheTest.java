@@ -0,0 +1,41 @@
+package com.narsil.misc.http;
+
+import com.narsil.misc.HttpUtils;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.X509TrustManager;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TlsContextCacheTest {
+
+    private final X509TrustManager trustManager = new HttpUtils._CustomizedTrustManager().getTrustManager();
+
+    @Test
+    public void test00_reuse() {
+
+        SSLConnectionSocketFactory a = TlsContextCache.getSocketFactory(trustManager, List.of("a.com", "b.com"));
+        SSLConnectionSocketFactory b = TlsContextCache.getSocketFactory(trustManager, List.of("b.com", "a.com"));
+        SSLConnectionSocketFactory c = TlsContextCache.getSocketFactory(trustManager, List.of("c.com"));
+
+        // same trust & hostname setting (regardless of ordering) -> same factory
+        assertSame(a, b);
+        assertNotSame(a, c);
+    }
+
+    @Test
+    public void test01_keepJvmDefault() throws Exception {
+
+        SSLContext before = SSLContext.getDefault();
+
+        new HttpEngine.Builder().setTrustManager(trustManager).setAllowedHostnames(List.of("d.com")).build().close();
+
+        assertSame(before, SSLContext.getDefault());
+    }
+}
@@ -0,0 +1,145 @@
+package com.narsil.misc.json;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class NdjsonTest {
+
+    private static final Logger LOGGER = Logger.getLogger("NdjsonTest");
+
+    private Path path;
+    private ForkJoinPool pool;
+
+    @Before
+    public void init() throws Exception {
+        path = Files.createTempFile("ndjson-", ".ndjson");
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void destroy() throws Exception {
+        pool.shutdown();
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void test00_writeThenReadOrdered() throws Exception {
+
+        try (NdjsonWriter<Item> writer = new NdjsonWriter.Builder<Item>().setPath(path).setTypeOfT(Item.class).build()) {
+            writer.writeAll(IntStream.range(0, 20000).mapToObj(i -> new Item(i, "line\n" + i + " ü")));
+            assertEquals(20000, writer.getCount());
+        }
+        assertEquals(20000, Files.readAllLines(path).size());
+
+        // small chunks -> many tasks
+        NdjsonReader<Item> reader = new NdjsonReader.Builder<Item>()
+                .setPath(path)
+                .setTypeOfT(Item.class)
+                .setPool(pool)
+                .setChunkSize(4096)
+                .build();
+
+        List<Item> items = new ArrayList<>();
+        NdjsonReader.Summary summary = reader.read(items::add);
+        LOGGER.info(summary.toString());
+
+        assertEquals(20000, summary.getLineCount());
+        assertEquals(0, summary.getErrorCount());
+        assertEquals(20000, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i, items.get(i).id);
+            assertEquals("line\n" + i + " ü", items.get(i).name);
+        }
+    }
+
+    @Test
+    public void test01_readUnordered() throws Exception {
+
+        try (NdjsonWriter<Item> writer = new NdjsonWriter.Builder<Item>().setPath(path).setTypeOfT(Item.class).build()) {
+            for (int i = 0; i < 5000; i++) {
+                writer.write(new Item(i, "n" + i));
+            }
+        }
+
+        List<Item> items = new NdjsonReader.Builder<Item>()
+                .setPath(path)
+                .setTypeOfT(Item.class)
+                .setPool(pool)
+                .setChunkSize(1024)
+                .setOrdered(false)
+                .build()
+                .readAll();
+
+        assertEquals(5000, items.size());
+        assertEquals(IntStream.range(0, 5000).boxed().collect(Collectors.toSet()),
+                items.stream().map(item -> item.id).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void test02_badLines() throws Exception {
+
+        // longer than chunk, blank, CRLF, broken, no newline at the end
+        String longName = "x".repeat(300);
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("{\"id\":1,\"name\":\"" + longName + "\"}\n");
+            writer.write("\n");
+            writer.write("{\"id\":2}\r\n");
+            writer.write("{\"id\":\n");
+            writer.write("null\n");
+            writer.write("{\"id\":\"three\"}\n");
+            writer.write("{\"id\":4}");
+        }
+
+        List<NdjsonReader.LineError> errors = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        NdjsonReader.Summary summary = new NdjsonReader.Builder<Item>()
+                .setPath(path)
+                .setTypeOfT(Item.class)
+                .setPool(pool)
+                .setChunkSize(64)
+                .setErrorHandler(errors::add)
+                .build()
+                .read(items::add);
+
+        assertEquals(7, summary.getLineCount());
+        assertEquals(3, summary.getValueCount());
+        assertEquals(List.of(1, 2, 4), items.stream().map(item -> item.id).collect(Collectors.toList()));
+        assertEquals(longName, items.get(0).name);
+
+        assertEquals(2, errors.size());
+        assertEquals(4, errors.get(0).getLineNumber());
+        assertEquals(6, errors.get(1).getLineNumber());
+        assertEquals("{\"id\":\"three\"}", errors.get(1).getLine());
+    }
+
+    private static class Item {
+
+        private int id;
+        private String name;
+
+        public Item() {
+        }
+
+        public Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}